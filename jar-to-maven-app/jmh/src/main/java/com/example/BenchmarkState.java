@@ -0,0 +1,63 @@
+package com.example;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// 每组参数生成一次合成 JAR，所有基准共用
+@State(Scope.Benchmark)
+public class BenchmarkState {
+
+    @Param({"200", "1000"})
+    public int classCount;
+
+    @Param({"0", "4"})
+    public int nestedJarCount;
+
+    @Param({"50"})
+    public int resourceCount;
+
+    public Path workDir;
+    public Path jarPath;
+    public ArchiveIndex index;
+    // 外层 JAR 与内嵌 JAR 中的 class 条目总数，用于换算 classes/sec
+    public int totalClasses;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        workDir = Files.createTempDirectory("jmh-jar");
+        jarPath = new SyntheticJarGenerator(classCount, nestedJarCount, resourceCount).generate(workDir, "bench.jar");
+        index = ArchiveIndex.open(jarPath);
+        totalClasses = countClasses(index);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        FileUtils.deleteDirectory(workDir.toFile());
+    }
+
+    public int appClasses() {
+        int count = 0;
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int countClasses(ArchiveIndex index) throws IOException {
+        int count = 0;
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                count++;
+            } else if (entry.getName().startsWith("BOOT-INF/lib/") && entry.getName().endsWith(".jar")) {
+                count += countClasses(index.openNested(entry));
+            }
+        }
+        return count;
+    }
+}
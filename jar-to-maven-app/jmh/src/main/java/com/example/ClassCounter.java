@@ -0,0 +1,20 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// 以 classes/sec 报告吞吐量：每次调用累加处理的类数，JMH 按迭代时间换算成速率
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ClassCounter {
+
+    public long classes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        classes = 0;
+    }
+}
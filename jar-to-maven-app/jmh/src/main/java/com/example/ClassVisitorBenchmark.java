@@ -0,0 +1,37 @@
+package com.example;
+
+import org.objectweb.asm.ClassReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 只测 ClassDependencyVisitor 的扫描，类字节预先读入内存，排除解压开销
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassVisitorBenchmark {
+
+    private List<byte[]> classes;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkState state) {
+        classes = new ArrayList<>(new SyntheticJarGenerator(state.classCount, 0, 0).classes("com/bench", state.classCount).values());
+    }
+
+    @Benchmark
+    public void visitClasses(ClassCounter counter, Blackhole blackhole) {
+        MavenProjectGenerator.ReferencedPackages referenced = new MavenProjectGenerator.ReferencedPackages();
+        for (byte[] bytes : classes) {
+            new ClassReader(bytes).accept(new MavenProjectGenerator.ClassDependencyVisitor(referenced),
+                    ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        }
+        blackhole.consume(referenced.getPackages());
+        counter.classes += classes.size();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// 端到端：JarDecompiler.decompileJar，包括内嵌 JAR 模块、资源复制和 pom 生成
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class DecompileJarBenchmark {
+
+    private JarDecompiler decompiler;
+    private String jarPath;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkState state) throws IOException {
+        Path outputDir = Files.createDirectories(state.workDir.resolve("decompile-out"));
+        Properties properties = new Properties();
+        properties.setProperty("decompile.parallelism", "1");
+        properties.setProperty("decompile.nestedJars", "true");
+        properties.setProperty("cache.enabled", "false");
+        jarPath = state.jarPath.toString();
+        decompiler = new JarDecompiler(outputDir.toString(), new AppConfig(properties));
+    }
+
+    @Benchmark
+    public void decompileJar(BenchmarkState state, ClassCounter counter) {
+        decompiler.decompileJar(jarPath);
+        counter.classes += state.totalClasses;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example;
+
+import org.apache.maven.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// MavenProjectGenerator.analyzeDependencies：扫描全部类文件并推断依赖
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class DependencyAnalysisBenchmark {
+
+    private final MavenProjectGenerator generator = new MavenProjectGenerator();
+    private int classes;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkState state) {
+        classes = state.appClasses();
+    }
+
+    @Benchmark
+    public Model analyzeDependencies(BenchmarkState state, ClassCounter counter) throws IOException {
+        Model model = new Model();
+        generator.analyzeDependencies(model, state.index);
+        counter.classes += classes;
+        return model;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example;
+
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// 输出 Sink 的写入路径：源码预先反编译好，只测解析包名/类名、经写线程建目录和写文件。
+// 每次调用新建并关闭 SourceWriter，计时包含全部文件落盘
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SinkWriteBenchmark {
+
+    @Param({"files", "zip"})
+    public String mode;
+
+    private final List<SinkReturns.Decompiled> sources = new ArrayList<>();
+    private JarDecompiler decompiler;
+    private Path outputDir;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkState state) throws IOException {
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : state.index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classPaths.add(JarClassFileSource.toClassPath(entry.getName()));
+            }
+        }
+        new DecompileEngine().decompile(new JarClassFileSource(state.index), classPaths, collectingSink(sources));
+
+        outputDir = Files.createDirectories(state.workDir.resolve("sink-out-" + mode));
+        decompiler = new JarDecompiler(outputDir.toString(), new AppConfig(new Properties()));
+    }
+
+    @Benchmark
+    public void writeSources(ClassCounter counter) throws IOException {
+        try (SourceWriter writer = new SourceWriter(outputDir, "zip".equals(mode), 256)) {
+            OutputSinkFactory.Sink<SinkReturns.Decompiled> sink = decompiler.createOutputSinkFactory(outputDir.resolve("src/main/java"), writer)
+                    .getSink(OutputSinkFactory.SinkType.JAVA, OutputSinkFactory.SinkClass.DECOMPILED);
+            for (SinkReturns.Decompiled source : sources) {
+                sink.write(source);
+            }
+        }
+        counter.classes += sources.size();
+    }
+
+    private static OutputSinkFactory collectingSink(List<SinkReturns.Decompiled> outputs) {
+        return new OutputSinkFactory() {
+            @Override
+            public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> collection) {
+                if (sinkType == SinkType.JAVA) {
+                    return Collections.singletonList(SinkClass.DECOMPILED);
+                }
+                return Collections.singletonList(SinkClass.STRING);
+            }
+
+            @Override
+            public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+                return t -> {
+                    if (sinkType == SinkType.JAVA) {
+                        outputs.add((SinkReturns.Decompiled) t);
+                    }
+                };
+            }
+        };
+    }
+}
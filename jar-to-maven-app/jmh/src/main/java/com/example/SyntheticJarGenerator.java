@@ -0,0 +1,220 @@
+package com.example;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+// 用 ASM 直接生成字节码构造合成 JAR，规模由类数量、内嵌 JAR 数量和资源数量控制。
+// 生成的类互相引用、带内部类和 switch，并引用 slf4j/jackson 等常见三方包，覆盖反编译和依赖推断的主要路径
+public class SyntheticJarGenerator {
+
+    private static final String[] LIBRARY_OWNERS = {
+            "org/slf4j/LoggerFactory", "com/fasterxml/jackson/databind/ObjectMapper",
+            "org/apache/commons/lang3/StringUtils", "javax/servlet/http/HttpServletRequest"
+    };
+
+    private final int classCount;
+    private final int nestedJarCount;
+    private final int resourceCount;
+    private final Random random = new Random(42);
+
+    public SyntheticJarGenerator(int classCount, int nestedJarCount, int resourceCount) {
+        this.classCount = classCount;
+        this.nestedJarCount = nestedJarCount;
+        this.resourceCount = resourceCount;
+    }
+
+    // 生成 Spring Boot 布局的 JAR：应用类在 BOOT-INF/classes，内嵌 JAR 以 STORED 方式放在 BOOT-INF/lib
+    public Path generate(Path dir, String name) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Start-Class", "com.bench.p0.C0");
+        Path jarPath = dir.resolve(name);
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jarPath), manifest)) {
+            for (Map.Entry<String, byte[]> entry : classes("com/bench", classCount).entrySet()) {
+                putEntry(out, "BOOT-INF/classes/" + entry.getKey(), entry.getValue(), false);
+            }
+            for (int i = 0; i < resourceCount; i++) {
+                putEntry(out, "BOOT-INF/classes/" + resourceName(i), resource(i), false);
+            }
+            for (int i = 0; i < nestedJarCount; i++) {
+                putEntry(out, "BOOT-INF/lib/lib" + i + "-1.0.jar", nestedJar(i), true);
+            }
+        }
+        return jarPath;
+    }
+
+    // 类路径 -> 字节码，同时用于直接驱动 ClassDependencyVisitor 的基准
+    public Map<String, byte[]> classes(String basePackage, int count) {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = basePackage + "/p" + (i % 16) + "/C" + i;
+            int n = (i + 1) % count;
+            String next = basePackage + "/p" + (n % 16) + "/C" + n;
+            classes.put(name + ".class", outerClass(name, next));
+            classes.put(name + "$Inner.class", innerClass(name));
+        }
+        return classes;
+    }
+
+    private byte[] nestedJar(int index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JarOutputStream out = new JarOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : classes("org/lib" + index, Math.max(1, classCount / 10)).entrySet()) {
+                putEntry(out, entry.getKey(), entry.getValue(), false);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String resourceName(int index) {
+        switch (index % 3) {
+            case 0:
+                return "config/app" + index + ".properties";
+            case 1:
+                return "static/data" + index + ".json";
+            default:
+                return "static/img/logo" + index + ".png";
+        }
+    }
+
+    // 文本资源可压缩，二进制资源为随机字节，大小 1KB~64KB
+    private byte[] resource(int index) {
+        int size = 1024 + random.nextInt(63 * 1024);
+        if (index % 3 == 2) {
+            byte[] bytes = new byte[size];
+            random.nextBytes(bytes);
+            return bytes;
+        }
+        StringBuilder sb = new StringBuilder(size);
+        while (sb.length() < size) {
+            sb.append("key").append(sb.length()).append('=').append("value-").append(index).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] outerClass(String name, String next) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+        cw.visitInnerClass(name + "$Inner", name, "Inner", Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "items", "Ljava/util/List;", null, null).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitTypeInsn(Opcodes.NEW, "java/util/ArrayList");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, name, "items", "Ljava/util/List;");
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "size", "()I", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, name, "items", "Ljava/util/List;");
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/List", "size", "()I", true);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "next", "()Ljava/lang/Object;", null, null);
+        mv.visitCode();
+        mv.visitTypeInsn(Opcodes.NEW, next);
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, next, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        // 引用三方库类型，供依赖推断使用
+        String owner = LIBRARY_OWNERS[Math.abs(name.hashCode()) % LIBRARY_OWNERS.length];
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "library", "()Ljava/lang/Object;", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(Type.getObjectType(owner));
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        // 16 分支的 tableswitch，给控制流分析一些工作量
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "code", "(I)I", null, null);
+        mv.visitCode();
+        Label defaultLabel = new Label();
+        Label[] labels = new Label[16];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = new Label();
+        }
+        mv.visitVarInsn(Opcodes.ILOAD, 0);
+        mv.visitTableSwitchInsn(0, labels.length - 1, defaultLabel, labels);
+        for (int i = 0; i < labels.length; i++) {
+            mv.visitLabel(labels[i]);
+            mv.visitIntInsn(Opcodes.SIPUSH, i * 31 + 7);
+            mv.visitInsn(Opcodes.IRETURN);
+        }
+        mv.visitLabel(defaultLabel);
+        mv.visitInsn(Opcodes.ICONST_M1);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static byte[] innerClass(String outer) {
+        String name = outer + "$Inner";
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+        cw.visitInnerClass(name, outer, "Inner", Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "name", "()Ljava/lang/String;", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(outer.replace('/', '.'));
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void putEntry(JarOutputStream out, String name, byte[] content, boolean stored) throws IOException {
+        JarEntry entry = new JarEntry(name);
+        if (stored) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+}
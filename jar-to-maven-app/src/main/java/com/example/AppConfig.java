@@ -0,0 +1,57 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+// 读取 classpath 下的 application.properties，同名的系统属性（-Dkey=value）优先
+public class AppConfig {
+
+    private static final String CONFIG_FILE = "application.properties";
+
+    private final Properties properties;
+
+    public AppConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static AppConfig load() {
+        Properties properties = new Properties();
+        try (InputStream is = AppConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (is != null) {
+                properties.load(is);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load " + CONFIG_FILE, e);
+        }
+        return new AppConfig(properties);
+    }
+
+    public String get(String key, String defaultValue) {
+        String value = System.getProperty(key, properties.getProperty(key));
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer for " + key + ": " + value, e);
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    // 反编译线程数，1 表示顺序执行，0 或负数表示使用全部 CPU 核心
+    public int getParallelism() {
+        int parallelism = getInt("decompile.parallelism", 1);
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+}
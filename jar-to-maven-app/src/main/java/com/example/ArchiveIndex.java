@@ -0,0 +1,403 @@
+package com.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+// JAR/ZIP 归档索引：一次扫描中央目录得到全部条目元数据，条目内容按需从内存映射（或内存中的）缓冲区读取。
+// 反编译、资源复制、pom 查找和依赖分析都从同一个索引读取，不再各自打开、遍历 JarFile。
+// 内嵌 JAR 如果是 STORED（Spring Boot 要求如此）直接以外层缓冲区的切片建立索引，不复制数据。
+// 所有读取方法都是线程安全的
+public class ArchiveIndex {
+
+    public static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int END_HEADER_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int MAX_POOLED_BUFFER = 1 << 20;
+
+    // 每个线程复用 Inflater 和压缩数据缓冲区，避免每个条目都重新分配
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+    private static final ThreadLocal<byte[][]> SCRATCH = ThreadLocal.withInitial(() -> new byte[1][8192]);
+    private static final ThreadLocal<ByteBuffer> OUTPUT = ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 * 1024));
+
+    private final String name;
+    private final ByteBuffer buffer;
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByName;
+
+    private ArchiveIndex(String name, ByteBuffer buffer) throws IOException {
+        this.name = name;
+        this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.entries = Collections.unmodifiableList(readCentralDirectory());
+        this.entriesByName = new HashMap<>(entries.size() * 2);
+        for (Entry entry : entries) {
+            entriesByName.putIfAbsent(entry.getName(), entry);
+        }
+    }
+
+    public static ArchiveIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Archive larger than 2GB is not supported: " + file);
+            }
+            return new ArchiveIndex(file.toString(), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static ArchiveIndex of(String name, ByteBuffer buffer) throws IOException {
+        return new ArchiveIndex(name, buffer);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public Entry getEntry(String entryName) {
+        return entriesByName.get(entryName);
+    }
+
+    // 读取并在需要时解压条目内容
+    public byte[] readBytes(Entry entry) throws IOException {
+        ByteBuffer raw = rawData(entry);
+        if (entry.method == Entry.STORED) {
+            byte[] bytes = new byte[raw.remaining()];
+            raw.get(bytes);
+            return bytes;
+        }
+        if (entry.method != Entry.DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method + ": " + entry.getName());
+        }
+        int compressedSize = raw.remaining();
+        byte[][] scratch = SCRATCH.get();
+        byte[] input = scratch[0];
+        if (input.length < compressedSize) {
+            input = new byte[compressedSize];
+            // 只缓存不太大的缓冲区，避免个别大条目让每个线程长期占用大块内存
+            if (compressedSize <= MAX_POOLED_BUFFER) {
+                scratch[0] = input;
+            }
+        }
+        raw.get(input, 0, compressedSize);
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(input, 0, compressedSize);
+        byte[] bytes = new byte[(int) entry.size];
+        try {
+            int n = 0;
+            while (n < bytes.length) {
+                int inflated = inflater.inflate(bytes, n, bytes.length - n);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += inflated;
+            }
+            if (n != bytes.length) {
+                throw new ZipException("Truncated entry: " + entry.getName());
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid deflate data in " + entry.getName() + ": " + e.getMessage());
+        }
+        return bytes;
+    }
+
+    // 只读取条目开头的 dest.length 个字节（类文件头等），返回实际读到的字节数：
+    // STORED 直接从映射缓冲区复制，DEFLATED 按小块喂给 Inflater，读够即停，不解压整个条目
+    public int readPrefix(Entry entry, byte[] dest) throws IOException {
+        ByteBuffer raw = rawData(entry);
+        if (entry.method == Entry.STORED) {
+            int n = Math.min(dest.length, raw.remaining());
+            raw.get(dest, 0, n);
+            return n;
+        }
+        if (entry.method != Entry.DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method + ": " + entry.getName());
+        }
+        byte[] input = SCRATCH.get()[0];
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        int n = 0;
+        try {
+            while (n < dest.length && !inflater.finished()) {
+                if (inflater.needsInput()) {
+                    if (!raw.hasRemaining()) {
+                        break;
+                    }
+                    // 文件头通常在第一个小块里
+                    int chunk = Math.min(Math.min(input.length, 512), raw.remaining());
+                    raw.get(input, 0, chunk);
+                    inflater.setInput(input, 0, chunk);
+                }
+                int inflated = inflater.inflate(dest, n, dest.length - n);
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    break;
+                }
+                n += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid deflate data in " + entry.getName() + ": " + e.getMessage());
+        }
+        return n;
+    }
+
+    // 把条目内容写入 channel：STORED 直接从映射缓冲区写出，不经过堆内存；
+    // DEFLATED 按块解压，复用线程本地的 Inflater 和输入、输出缓冲区，不为整个条目分配数组
+    public long transferTo(Entry entry, WritableByteChannel channel) throws IOException {
+        ByteBuffer raw = rawData(entry);
+        if (entry.method == Entry.STORED) {
+            long written = 0;
+            while (raw.hasRemaining()) {
+                written += channel.write(raw);
+            }
+            return written;
+        }
+        if (entry.method != Entry.DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method + ": " + entry.getName());
+        }
+        byte[][] scratch = SCRATCH.get();
+        byte[] input = scratch[0];
+        ByteBuffer output = OUTPUT.get();
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        long written = 0;
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    if (!raw.hasRemaining()) {
+                        break;
+                    }
+                    int n = Math.min(input.length, raw.remaining());
+                    raw.get(input, 0, n);
+                    inflater.setInput(input, 0, n);
+                }
+                int inflated = inflater.inflate(output.array(), 0, output.capacity());
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    break;
+                }
+                ((Buffer) output).clear();
+                ((Buffer) output).limit(inflated);
+                while (output.hasRemaining()) {
+                    channel.write(output);
+                }
+                written += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid deflate data in " + entry.getName() + ": " + e.getMessage());
+        }
+        if (written != entry.size) {
+            throw new ZipException("Truncated entry: " + entry.getName());
+        }
+        return written;
+    }
+
+    public InputStream getInputStream(Entry entry) throws IOException {
+        return new ByteArrayInputStream(readBytes(entry));
+    }
+
+    // STORED 条目的原始数据视图（零拷贝），DEFLATED 条目返回压缩数据
+    public ByteBuffer rawData(Entry entry) throws IOException {
+        ByteBuffer view = buffer.duplicate();
+        int dataOffset = entry.dataOffset(this);
+        // 通过 Buffer 调用 position/limit，保持与 Java 8 运行时的二进制兼容
+        ((Buffer) view).position(dataOffset);
+        ((Buffer) view).limit(dataOffset + (int) entry.compressedSize);
+        return view.slice();
+    }
+
+    public Manifest getManifest() throws IOException {
+        Entry entry = getEntry(MANIFEST_NAME);
+        if (entry == null) {
+            return null;
+        }
+        try (InputStream is = getInputStream(entry)) {
+            return new Manifest(is);
+        }
+    }
+
+    // 为内嵌 JAR 建立索引：STORED 直接使用切片，压缩存储的先解压到内存
+    public ArchiveIndex openNested(Entry entry) throws IOException {
+        String nestedName = name + "!/" + entry.getName();
+        if (entry.method == Entry.STORED) {
+            return new ArchiveIndex(nestedName, rawData(entry));
+        }
+        return new ArchiveIndex(nestedName, ByteBuffer.wrap(readBytes(entry)));
+    }
+
+    private List<Entry> readCentralDirectory() throws IOException {
+        int end = findEndOfCentralDirectory();
+        long total = u16(end + 10);
+        long cdSize = u32(end + 12);
+        long cdOffset = u32(end + 16);
+        if (total == 0xFFFF || cdSize == 0xFFFFFFFFL || cdOffset == 0xFFFFFFFFL) {
+            int locator = end - 20;
+            if (locator >= 0 && buffer.getInt(locator) == ZIP64_LOCATOR_SIG) {
+                int zip64End = (int) buffer.getLong(locator + 8);
+                if (buffer.getInt(zip64End) != ZIP64_END_SIG) {
+                    throw new ZipException("Invalid zip64 end header: " + name);
+                }
+                total = buffer.getLong(zip64End + 32);
+                cdSize = buffer.getLong(zip64End + 40);
+                cdOffset = buffer.getLong(zip64End + 48);
+                end = zip64End;
+            }
+        }
+        // 可执行 JAR 前面可能带有启动脚本，按中央目录实际位置修正偏移
+        long cdStart = end - cdSize;
+        long shift = cdStart - cdOffset;
+
+        List<Entry> result = new ArrayList<>((int) Math.min(total, 1 << 16));
+        int pos = (int) cdStart;
+        for (long i = 0; i < total; i++) {
+            if (buffer.getInt(pos) != CENTRAL_HEADER_SIG) {
+                throw new ZipException("Invalid central directory header: " + name);
+            }
+            int method = u16(pos + 10);
+            long crc = u32(pos + 16);
+            long compressedSize = u32(pos + 20);
+            long size = u32(pos + 24);
+            int nameLength = u16(pos + 28);
+            int extraLength = u16(pos + 30);
+            int commentLength = u16(pos + 32);
+            long localHeaderOffset = u32(pos + 42);
+
+            byte[] nameBytes = new byte[nameLength];
+            ByteBuffer view = buffer.duplicate();
+            ((Buffer) view).position(pos + 46);
+            view.get(nameBytes);
+            String entryName = new String(nameBytes, StandardCharsets.UTF_8);
+
+            // zip64 扩展字段，按 原始大小、压缩大小、本地头偏移 的顺序只出现被截断的字段
+            int extra = pos + 46 + nameLength;
+            int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                int id = u16(extra);
+                int length = u16(extra + 2);
+                if (id == 0x0001) {
+                    int field = extra + 4;
+                    if (size == 0xFFFFFFFFL) {
+                        size = buffer.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == 0xFFFFFFFFL) {
+                        compressedSize = buffer.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == 0xFFFFFFFFL) {
+                        localHeaderOffset = buffer.getLong(field);
+                    }
+                    break;
+                }
+                extra += 4 + length;
+            }
+
+            result.add(new Entry(entryName, method, crc, compressedSize, size, localHeaderOffset + shift));
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+        return result;
+    }
+
+    private int findEndOfCentralDirectory() throws ZipException {
+        int limit = Math.max(0, buffer.limit() - END_HEADER_SIZE - MAX_COMMENT_SIZE);
+        for (int pos = buffer.limit() - END_HEADER_SIZE; pos >= limit; pos--) {
+            if (buffer.getInt(pos) == END_SIG) {
+                return pos;
+            }
+        }
+        throw new ZipException("Not a zip archive: " + name);
+    }
+
+    private int u16(int pos) {
+        return buffer.getShort(pos) & 0xFFFF;
+    }
+
+    private long u32(int pos) {
+        return buffer.getInt(pos) & 0xFFFFFFFFL;
+    }
+
+    public static class Entry {
+        public static final int STORED = 0;
+        public static final int DEFLATED = 8;
+
+        private final String name;
+        private final int method;
+        private final long crc;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+        // 数据起始位置需要读取本地文件头才能确定，首次访问时计算
+        private volatile int dataOffset = -1;
+
+        Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        private int dataOffset(ArchiveIndex index) throws ZipException {
+            int offset = dataOffset;
+            if (offset < 0) {
+                int header = (int) localHeaderOffset;
+                if (index.buffer.getInt(header) != LOCAL_HEADER_SIG) {
+                    throw new ZipException("Invalid local header for " + name + " in " + index.name);
+                }
+                offset = header + 30 + index.u16(header + 26) + index.u16(header + 28);
+                dataOffset = offset;
+            }
+            return offset;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example;
+
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 批量反编译：一个进程处理一个目录或一组 JAR。
+// 所有 JAR 共用一个 ForkJoinPool（JAR 级任务与 JAR 内部的批次任务都在其中，等待子任务的线程会窃取其他任务执行），
+// 共用一个反编译引擎和结果缓存（相同的库类只反编译一次），依赖解析器和本地仓库索引按本批次的配置构建一次，同样跨 JAR 复用。
+// 结束时输出每个 JAR 的耗时汇总，并写入输出目录下的 batch-report.csv
+public class BatchDecompiler {
+
+    public static final String REPORT_NAME = "batch-report.csv";
+
+    private final String outputBaseDir;
+    private final AppConfig config;
+    private final int parallelism;
+    // 最近一次 decompileAll 使用的缓存，用于查看命中统计
+    private volatile DecompileCache cache;
+
+    public BatchDecompiler(String outputBaseDir, AppConfig config) {
+        this.outputBaseDir = outputBaseDir;
+        this.config = config;
+        int configured = config.getInt("batch.parallelism", 0);
+        this.parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    // 用法：BatchDecompiler <输出目录> <JAR 或目录>...
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchDecompiler <outputDir> <jar-or-directory>...");
+            System.exit(2);
+        }
+        try {
+            List<Path> jars = collectJars(Arrays.asList(args).subList(1, args.length));
+            List<Result> results = new BatchDecompiler(args[0], AppConfig.load()).decompileAll(jars);
+            boolean failed = results.stream().anyMatch(r -> r.getError() != null);
+            System.exit(failed ? 1 : 0);
+        } catch (IOException e) {
+            System.err.println("Batch decompile failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    // 目录递归查找 *.jar；按文件大小从大到小排列，大 JAR 先开始，减少最后的长尾
+    public static List<Path> collectJars(List<String> inputs) throws IOException {
+        Set<Path> jars = new LinkedHashSet<>();
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    jars.addAll(walk.filter(p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(".jar"))
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                jars.add(path);
+            }
+        }
+        List<Path> sorted = new ArrayList<>(jars);
+        Map<Path, Long> sizes = new HashMap<>();
+        for (Path jar : sorted) {
+            sizes.put(jar, Files.exists(jar) ? Files.size(jar) : 0L);
+        }
+        sorted.sort(Comparator.comparing((Path jar) -> sizes.get(jar)).reversed());
+        return sorted;
+    }
+
+    public List<Result> decompileAll(List<Path> jars) throws IOException {
+        Files.createDirectories(Paths.get(outputBaseDir));
+        // 未配置持久缓存时，用一个批次内的临时缓存在 JAR 之间共享反编译结果
+        DecompileCache cache = DecompileCache.fromConfig(config);
+        Path tempCacheDir = null;
+        if (cache == null && config.getBoolean("batch.sharedCache", true)) {
+            tempCacheDir = Files.createTempDirectory("jar-to-maven-batch");
+            cache = new DecompileCache(tempCacheDir, config.getInt("cache.maxSizeMb", 512) * 1024L * 1024L);
+        }
+        DecompileEngine engine = DecompileEngine.fromConfig(config, cache);
+        DependencyResolver resolver = DependencyResolver.fromConfig(config);
+        LocalRepositoryIndex localIndex = LocalRepositoryIndex.fromConfig(config);
+        this.cache = cache;
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<Result> results = new ArrayList<>();
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            Set<String> projectNames = new HashSet<>();
+            for (Path jar : jars) {
+                // 输出目录按 JAR 文件名命名，同名 JAR 会互相覆盖
+                if (!projectNames.add(jar.getFileName().toString())) {
+                    results.add(new Result(jar, 0, 0, "duplicate jar name, skipped"));
+                    continue;
+                }
+                futures.add(pool.submit(() -> decompileOne(jar, engine, resolver, localIndex, pool)));
+            }
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while decompiling batch", e);
+                } catch (ExecutionException e) {
+                    throw new IOException("Batch task failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            if (tempCacheDir != null) {
+                FileUtils.deleteDirectory(tempCacheDir.toFile());
+            }
+        }
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+        writeReport(results);
+        System.out.println(formatSummary(results, wallMillis));
+        if (cache != null) {
+            System.out.println("Decompile cache: " + cache);
+        }
+        // 批次内所有 JAR 的指标汇总在一起导出
+        engine.getMetrics().exportIfConfigured(config, "batch");
+        return results;
+    }
+
+    private Result decompileOne(Path jar, DecompileEngine engine, DependencyResolver resolver,
+                                LocalRepositoryIndex localIndex, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        JarDecompiler decompiler = new JarDecompiler(outputBaseDir, config, engine, parallelism, resolver, localIndex);
+        try {
+            decompiler.decompileJar(jar.toString(), pool);
+            return new Result(jar, (System.nanoTime() - start) / 1_000_000, decompiler.getDecompiledFileCount(), null);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to decompile " + jar);
+            e.printStackTrace();
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+            return new Result(jar, (System.nanoTime() - start) / 1_000_000, decompiler.getDecompiledFileCount(), message);
+        }
+    }
+
+    public DecompileCache getCache() {
+        return cache;
+    }
+
+    static String formatSummary(List<Result> results, long wallMillis) {
+        List<Result> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingLong(Result::getMillis).reversed());
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-50s %8s %10s  %s%n", "JAR", "FILES", "TIME(ms)", "STATUS"));
+        long totalMillis = 0;
+        int failed = 0;
+        for (Result result : sorted) {
+            totalMillis += result.getMillis();
+            if (result.getError() != null) {
+                failed++;
+            }
+            sb.append(String.format("%-50s %8d %10d  %s%n", result.getJar().getFileName(), result.getFiles(),
+                    result.getMillis(), result.getError() == null ? "OK" : "FAILED: " + result.getError()));
+        }
+        sb.append(String.format("%d jars, %d failed, wall time %d ms, sum of jar times %d ms",
+                results.size(), failed, wallMillis, totalMillis));
+        return sb.toString();
+    }
+
+    private void writeReport(List<Result> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("jar,files,millis,status");
+        for (Result result : results) {
+            String status = result.getError() == null ? "OK" : "FAILED: " + result.getError().replace('"', '\'');
+            lines.add(result.getJar() + "," + result.getFiles() + "," + result.getMillis() + ",\"" + status + "\"");
+        }
+        Files.write(Paths.get(outputBaseDir, REPORT_NAME), lines, StandardCharsets.UTF_8);
+    }
+
+    public static class Result {
+        private final Path jar;
+        private final long millis;
+        private final int files;
+        private final String error;
+
+        Result(Path jar, long millis, int files, String error) {
+            this.jar = jar;
+            this.millis = millis;
+            this.files = files;
+            this.error = error;
+        }
+
+        public Path getJar() {
+            return jar;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        // 成功时为 null
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example;
+
+import org.benf.cfr.reader.api.CfrDriver;
+import org.benf.cfr.reader.api.ClassFileSource;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// CFR 后端：一个 CfrDriver、一次 analyse 调用处理一批类，CFR 的类文件缓存在整批中共享。
+// 配置了 DecompileGuard 时受保护运行，被取消的类用简化选项重试，仍失败则输出签名存根
+public class CfrBackend implements DecompilerBackend {
+
+    // CFR 只有在按 JAR 分析时才在所有类之间共享同一个 DCCommonState（按单个类分析时每个类都会新建缓存），
+    // 因此用一个虚拟的 JAR 路径触发 JAR 模式，实际的类列表由 AnalysisSource.addJar 提供
+    private static final String ANALYSIS_JAR = "analysis.jar";
+    // 重试前等待被放弃的运行退出的时间；仍未退出时它还占着自己的 CfrDriver 堆，再起一个只会加重内存压力
+    private static final long ABANDONED_GRACE_MILLIS = 1000;
+
+    private final Map<String, String> options;
+    private final DecompileMetrics metrics;
+    // 为 null 时 CFR 在调用线程中运行，不限时
+    private final DecompileGuard guard;
+
+    public CfrBackend(Map<String, String> options, DecompileMetrics metrics, DecompileGuard guard) {
+        this.options = new HashMap<>(options);
+        this.metrics = metrics;
+        this.guard = guard;
+    }
+
+    @Override
+    public String getName() {
+        return "cfr";
+    }
+
+    @Override
+    public void decompile(ClassFileSource source, List<String> classPaths, OutputSinkFactory outputSinkFactory) {
+        if (classPaths.isEmpty()) {
+            return;
+        }
+        if (guard == null) {
+            analyse(source, classPaths, options, null, new MonitoringSinkFactory(outputSinkFactory, null, null, false));
+            return;
+        }
+        // 被取消的类单独处理，其余尚未输出的类用新的 CfrDriver 继续，直到全部完成
+        List<String> remaining = classPaths;
+        while (!remaining.isEmpty()) {
+            Set<String> emitted = ConcurrentHashMap.newKeySet();
+            List<String> batch = remaining;
+            DecompileGuard.Cancellation cancellation = guard.run(run ->
+                    analyse(source, batch, options, run, new MonitoringSinkFactory(outputSinkFactory, run, emitted, false)));
+            if (cancellation == null) {
+                return;
+            }
+            TreeMap<String, List<String>> groups = DecompileEngine.groupByOuterClass(batch);
+            groups.keySet().removeAll(emitted);
+            List<String> stalled = cancellation.getClassName() == null ? null : groups.remove(cancellation.getClassName());
+            if (stalled == null) {
+                // 取消时不在任何一个待处理的类上，无法缩小范围，剩余的类都生成存根
+                for (String outerPath : groups.keySet()) {
+                    writeSkeleton(source, outerPath, cancellation.getReason(), outputSinkFactory);
+                }
+                return;
+            }
+            decompileCheaply(source, cancellation, stalled, outputSinkFactory);
+            remaining = new ArrayList<>();
+            for (List<String> group : groups.values()) {
+                remaining.addAll(group);
+            }
+        }
+    }
+
+    // 每次运行一个新的 CfrDriver，运行被放弃后它的状态随之丢弃，不会影响后续的运行
+    private void analyse(ClassFileSource source, List<String> classPaths, Map<String, String> options,
+                         DecompileGuard.GuardedRun run, OutputSinkFactory outputSinkFactory) {
+        CfrDriver driver = new CfrDriver.Builder()
+                .withOptions(options)
+                .withClassFileSource(new AnalysisSource(source, classPaths, run))
+                .withOutputSink(outputSinkFactory)
+                .build();
+        driver.analyse(Collections.singletonList(ANALYSIS_JAR));
+    }
+
+    // 用简化选项重试被取消的类，仍超出预算则输出签名存根；有被放弃的运行还没有退出时不重试，直接输出存根。
+    // 结果标记为降级，不写入缓存：缓存键对应的是默认选项的输出
+    private void decompileCheaply(ClassFileSource source, DecompileGuard.Cancellation cancellation, List<String> group,
+                                  OutputSinkFactory outputSinkFactory) {
+        String outerPath = cancellation.getClassName();
+        metrics.recordFailure(DecompileGuard.REASON_HEAP.equals(cancellation.getReason())
+                ? DecompileMetrics.FAILURE_HEAP : DecompileMetrics.FAILURE_TIMEOUT);
+        if (!DecompileGuard.awaitAbandonedRuns(ABANDONED_GRACE_MILLIS)) {
+            System.err.println("Decompiling " + outerPath.replace('/', '.') + " was cancelled (" + cancellation.getReason()
+                    + "), " + DecompileGuard.getAbandonedRuns() + " abandoned run(s) still running, not retrying");
+            writeSkeleton(source, outerPath, cancellation.getReason(), outputSinkFactory);
+            return;
+        }
+        System.err.println("Decompiling " + outerPath.replace('/', '.') + " was cancelled (" + cancellation.getReason()
+                + "), retrying with cheaper options");
+        Set<String> emitted = ConcurrentHashMap.newKeySet();
+        DecompileGuard.Cancellation again = guard.run(run ->
+                analyse(source, group, DecompileEngine.cheapOptions(options), run,
+                        new MonitoringSinkFactory(outputSinkFactory, run, emitted, true)));
+        if (again != null || !emitted.contains(outerPath)) {
+            writeSkeleton(source, outerPath, again != null ? again.getReason() : cancellation.getReason(), outputSinkFactory);
+        }
+    }
+
+    private void writeSkeleton(ClassFileSource source, String outerPath, String reason, OutputSinkFactory outputSinkFactory) {
+        metrics.recordFailure(DecompileMetrics.FAILURE_SKELETON);
+        String className = outerPath.replace('/', '.');
+        String comment = "Decompilation of " + className + " was cancelled (" + reason + ", budget "
+                + guard.getClassTimeoutMillis() + " ms)";
+        System.err.println(comment + ", writing a signature-only stub");
+        String java;
+        try {
+            Pair<byte[], String> content = source.getClassFileContent(outerPath + ".class");
+            java = content != null ? SkeletonGenerator.generate(content.getFirst(), comment)
+                    : SkeletonGenerator.generateEmpty(outerPath, comment);
+        } catch (IOException | RuntimeException e) {
+            java = SkeletonGenerator.generateEmpty(outerPath, comment);
+        }
+        DecompileEngine.writeJava(outputSinkFactory, new DecompilerBackend.Source(outerPath, java, true));
+    }
+
+    // CFR 在分析每个外部类前输出 PROGRESS「Analysing type a.b.C」，分析完输出 JAVA，两者之间的时间即该类的反编译耗时。
+    // 受保护运行时同时向 run 报告当前类，并在被取消后丢弃输出；emitted 记录已输出的外部类路径。
+    // degraded 为 true 时（简化选项重试）输出标记为降级结果。
+    // CFR 整类失败时通过 EXCEPTION 输出报告，计入失败数
+    private class MonitoringSinkFactory implements OutputSinkFactory {
+        private static final String ANALYSING_TYPE = "Analysing type ";
+
+        private final OutputSinkFactory delegate;
+        private final DecompileGuard.GuardedRun run;
+        private final Set<String> emitted;
+        private final boolean degraded;
+        private long classStart = System.nanoTime();
+
+        MonitoringSinkFactory(OutputSinkFactory delegate, DecompileGuard.GuardedRun run, Set<String> emitted,
+                              boolean degraded) {
+            this.delegate = delegate;
+            this.run = run;
+            this.emitted = emitted;
+            this.degraded = degraded;
+        }
+
+        @Override
+        public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+            if (sinkType == SinkType.JAVA && available.contains(SinkClass.DECOMPILED)) {
+                return Collections.singletonList(SinkClass.DECOMPILED);
+            }
+            if (sinkType == SinkType.PROGRESS) {
+                return Collections.singletonList(SinkClass.STRING);
+            }
+            return delegate.getSupportedSinks(sinkType, available);
+        }
+
+        @Override
+        public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+            if (sinkType == SinkType.PROGRESS) {
+                List<SinkClass> supported = delegate.getSupportedSinks(sinkType, Collections.singletonList(SinkClass.STRING));
+                Sink<T> sink = supported != null && supported.contains(SinkClass.STRING) ? delegate.getSink(sinkType, sinkClass) : null;
+                return t -> {
+                    if (run != null) {
+                        run.checkpoint();
+                    }
+                    String message = String.valueOf(t);
+                    if (message.startsWith(ANALYSING_TYPE)) {
+                        classStart = System.nanoTime();
+                        if (run != null) {
+                            run.startClass(message.substring(ANALYSING_TYPE.length()).trim().replace('.', '/'));
+                        }
+                    }
+                    if (sink != null) {
+                        sink.write(t);
+                    }
+                };
+            }
+            if (sinkType == SinkType.EXCEPTION) {
+                Sink<T> sink = delegate.getSink(sinkType, sinkClass);
+                return t -> {
+                    metrics.recordFailure(DecompileMetrics.FAILURE_CLASS);
+                    sink.write(t);
+                };
+            }
+            if (sinkType != SinkType.JAVA || sinkClass != SinkClass.DECOMPILED) {
+                return delegate.getSink(sinkType, sinkClass);
+            }
+            return t -> {
+                SinkReturns.Decompiled decompiled = degraded ? degrade((SinkReturns.Decompiled) t) : (SinkReturns.Decompiled) t;
+                String className = decompiled.getPackageName().isEmpty() ? decompiled.getClassName()
+                        : decompiled.getPackageName() + "." + decompiled.getClassName();
+                metrics.recordClass(className, System.nanoTime() - classStart);
+                if (run == null) {
+                    DecompileEngine.writeJava(delegate, decompiled);
+                    return;
+                }
+                if (!run.enterSink()) {
+                    return;
+                }
+                try {
+                    DecompileEngine.writeJava(delegate, decompiled);
+                    emitted.add(className.replace('.', '/'));
+                } finally {
+                    run.exitSink();
+                }
+            };
+        }
+
+        private SinkReturns.Decompiled degrade(SinkReturns.Decompiled decompiled) {
+            String outerPath = decompiled.getPackageName().isEmpty() ? decompiled.getClassName()
+                    : decompiled.getPackageName().replace('.', '/') + "/" + decompiled.getClassName();
+            return new DecompilerBackend.Source(outerPath, decompiled.getJava(), true);
+        }
+    }
+
+    // 受保护运行时每次读类都是一个检查点，被放弃的运行在 CFR 下一次加载类时退出
+    private class AnalysisSource implements ClassFileSource {
+        private final ClassFileSource delegate;
+        private final List<String> classPaths;
+        private final DecompileGuard.GuardedRun run;
+
+        AnalysisSource(ClassFileSource delegate, List<String> classPaths, DecompileGuard.GuardedRun run) {
+            this.delegate = delegate;
+            this.classPaths = classPaths;
+            this.run = run;
+        }
+
+        @Override
+        public void informAnalysisRelativePathDetail(String usePath, String classFilePath) {
+            delegate.informAnalysisRelativePathDetail(usePath, classFilePath);
+        }
+
+        @Override
+        public Collection<String> addJar(String jarPath) {
+            return ANALYSIS_JAR.equals(jarPath) ? classPaths : delegate.addJar(jarPath);
+        }
+
+        @Override
+        public String getPossiblyRenamedPath(String path) {
+            return delegate.getPossiblyRenamedPath(path);
+        }
+
+        @Override
+        public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+            if (run != null) {
+                run.checkpoint();
+            }
+            return delegate.getClassFileContent(path);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.example;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 编译校验阶段：用 javax.tools.JavaCompiler 在进程内编译生成的源码，找出无法编译的反编译结果。
+// 源文件按包分组、再分成若干块，每块一个编译任务在线程池中并行执行，块外的源码经 -sourcepath 按需解析（-implicit:none），
+// 类文件输出被丢弃，不写盘。verify(root, files) 只编译指定的文件，重新反编译部分类之后用它做增量校验。
+// 只由找不到包或符号（缺少依赖 JAR）引起的错误单独标记，这类文件重新反编译也无济于事
+public class CompileVerifier {
+
+    private static final Set<String> UNRESOLVED_CODES = new HashSet<>(Arrays.asList(
+            "compiler.err.doesnt.exist",
+            "compiler.err.cant.resolve",
+            "compiler.err.cant.resolve.location",
+            "compiler.err.cant.resolve.location.args",
+            "compiler.err.cant.resolve.location.args.params",
+            "compiler.err.cant.access"));
+
+    private final JavaCompiler compiler;
+    private final ExecutorService executor;
+    private final int chunkCount;
+    private final List<Path> classpath;
+    private final DecompileMetrics metrics;
+    private volatile String javaLevel;
+
+    // executor 为 null 时所有源码在一个编译任务中顺序编译
+    public CompileVerifier(JavaCompiler compiler, ExecutorService executor, int chunkCount, List<Path> classpath,
+                           DecompileMetrics metrics) {
+        this.compiler = compiler;
+        this.executor = executor;
+        this.chunkCount = Math.max(1, chunkCount);
+        this.classpath = classpath;
+        this.metrics = metrics;
+    }
+
+    // 未开启 verify.enabled 或运行在没有编译器的 JRE 上时返回 null。
+    // 类路径为 verify.classpath（按路径分隔符分隔）加上 extraClasspath（通常是被反编译的 JAR 本身）
+    public static CompileVerifier fromConfig(AppConfig config, ExecutorService executor, int parallelism,
+                                             DecompileMetrics metrics, Path... extraClasspath) {
+        if (!config.getBoolean("verify.enabled", false)) {
+            return null;
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            System.err.println("No system Java compiler available (running on a JRE?), skipping compile verification");
+            return null;
+        }
+        List<Path> classpath = new ArrayList<>();
+        for (String path : config.get("verify.classpath", "").split(File.pathSeparator)) {
+            if (!path.trim().isEmpty()) {
+                classpath.add(Paths.get(path.trim()));
+            }
+        }
+        classpath.addAll(Arrays.asList(extraClasspath));
+        return new CompileVerifier(compiler, executor, executor == null ? 1 : parallelism * 2, classpath, metrics);
+    }
+
+    // 按生成的 pom 的编译级别（"1.8"、"11"……）校验，而不是宿主 JDK 的默认级别；null 表示用默认级别
+    public void setJavaLevel(String javaLevel) {
+        this.javaLevel = javaLevel;
+    }
+
+    // 支持 --release 的编译器（JDK 9+）用 --release，否则用 -source/-target；宿主 JDK 不支持该级别时退回默认级别
+    List<String> levelOptions() {
+        String level = javaLevel;
+        if (level == null || level.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        level = level.trim();
+        String release = level.startsWith("1.") ? level.substring(2) : level;
+        boolean supported;
+        try {
+            supported = compiler.getSourceVersions().contains(SourceVersion.valueOf("RELEASE_" + release));
+        } catch (IllegalArgumentException e) {
+            supported = false;
+        }
+        if (!supported) {
+            System.err.println("Java level " + level + " is not supported by the host compiler, verifying with its default level");
+            return Collections.emptyList();
+        }
+        if (compiler.isSupportedOption("--release") >= 0) {
+            return Arrays.asList("--release", release);
+        }
+        return Arrays.asList("-source", level, "-target", level);
+    }
+
+    // 编译 sourceRoot 下的全部 .java 文件
+    public Result verify(Path sourceRoot) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(sourceRoot)) {
+            files = walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".java")).sorted()
+                    .collect(Collectors.toList());
+        }
+        return verify(sourceRoot, files);
+    }
+
+    // 只编译 files，其余源码按需从 sourceRoot 解析
+    @SuppressWarnings("try")
+    public Result verify(Path sourceRoot, Collection<Path> files) throws IOException {
+        try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_VERIFY)) {
+            // 编译器报告的是绝对路径
+            Path root = sourceRoot.toAbsolutePath().normalize();
+            List<Path> absolute = new ArrayList<>();
+            for (Path file : files) {
+                absolute.add(file.toAbsolutePath().normalize());
+            }
+            Result result = new Result(root, absolute.size());
+            List<List<Path>> chunks = chunkByPackage(absolute);
+            if (executor == null || chunks.size() < 2) {
+                for (List<Path> chunk : chunks) {
+                    compile(root, chunk, result);
+                }
+                return result;
+            }
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Path> chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    compile(root, chunk, result);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while verifying sources", e);
+                } catch (ExecutionException e) {
+                    throw new IOException("Failed to verify sources", e.getCause());
+                }
+            }
+            return result;
+        }
+    }
+
+    // 同一个包的文件放在同一块，包之间互相引用较多，块内解析一次即可；按文件数大致均分
+    private List<List<Path>> chunkByPackage(Collection<Path> files) {
+        Map<Path, List<Path>> packages = new TreeMap<>();
+        for (Path file : files) {
+            packages.computeIfAbsent(file.getParent(), k -> new ArrayList<>()).add(file);
+        }
+        int chunkSize = Math.max(1, (files.size() + chunkCount - 1) / chunkCount);
+        List<List<Path>> chunks = new ArrayList<>();
+        List<Path> current = new ArrayList<>();
+        for (List<Path> packageFiles : packages.values()) {
+            current.addAll(packageFiles);
+            if (current.size() >= chunkSize) {
+                chunks.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private void compile(Path sourceRoot, List<Path> files, Result result) throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        // StandardJavaFileManager 不是线程安全的，每个编译任务一个
+        StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8);
+        try (JavaFileManager fileManager = new DiscardingFileManager(standard)) {
+            List<String> options = new ArrayList<>(Arrays.asList("-proc:none", "-implicit:none", "-nowarn",
+                    "-encoding", "UTF-8", "-Xmaxerrs", "100000", "-sourcepath", sourceRoot.toString()));
+            options.addAll(levelOptions());
+            if (!classpath.isEmpty()) {
+                options.add("-classpath");
+                options.add(classpath.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator)));
+            }
+            Iterable<? extends JavaFileObject> units = standard.getJavaFileObjectsFromFiles(
+                    files.stream().map(Path::toFile).collect(Collectors.toList()));
+            compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+        }
+
+        Set<URI> inChunk = new HashSet<>();
+        for (Path file : files) {
+            inChunk.add(file.toUri().normalize());
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR || diagnostic.getSource() == null) {
+                continue;
+            }
+            URI uri = diagnostic.getSource().toUri().normalize();
+            // 按需解析的块外源码的错误由它所在的块报告
+            if (inChunk.contains(uri)) {
+                result.addError(Paths.get(uri), diagnostic.getLineNumber() + ": " + diagnostic.getMessage(Locale.ROOT),
+                        UNRESOLVED_CODES.contains(diagnostic.getCode()));
+            }
+        }
+    }
+
+    // 编译结果的类文件直接丢弃
+    private static class DiscardingFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+        DiscardingFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("discard:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new OutputStream() {
+                        @Override
+                        public void write(int b) {
+                        }
+
+                        @Override
+                        public void write(byte[] b, int off, int len) {
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    public static class Result {
+        private final Path sourceRoot;
+        private final int fileCount;
+        private final Map<Path, FileErrors> failures = new TreeMap<>();
+
+        Result(Path sourceRoot, int fileCount) {
+            this.sourceRoot = sourceRoot;
+            this.fileCount = fileCount;
+        }
+
+        synchronized void addError(Path file, String message, boolean unresolved) {
+            failures.computeIfAbsent(file, k -> new FileErrors()).add(message, unresolved);
+        }
+
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        public synchronized Set<Path> getFailedFiles() {
+            return new TreeSet<>(failures.keySet());
+        }
+
+        // 错误不全是找不到包或符号的文件，即反编译结果本身有问题、值得换选项重新反编译的
+        public synchronized Set<Path> getBrokenFiles() {
+            Set<Path> broken = new TreeSet<>();
+            for (Map.Entry<Path, FileErrors> entry : failures.entrySet()) {
+                if (!entry.getValue().unresolvedOnly) {
+                    broken.add(entry.getKey());
+                }
+            }
+            return broken;
+        }
+
+        public synchronized List<String> getErrors(Path file) {
+            FileErrors errors = failures.get(file);
+            return errors == null ? Collections.emptyList() : new ArrayList<>(errors.messages);
+        }
+
+        // 源文件对应的外部类路径（a/b/C），文件名即顶层类型名
+        public String toClassPath(Path file) {
+            String relative = sourceRoot.relativize(file).toString().replace(File.separatorChar, '/');
+            return relative.substring(0, relative.length() - ".java".length());
+        }
+
+        @Override
+        public synchronized String toString() {
+            return fileCount + " files, " + failures.size() + " failed to compile (" + getBrokenFiles().size()
+                    + " not caused by missing dependencies)";
+        }
+    }
+
+    private static class FileErrors {
+        private final List<String> messages = new ArrayList<>();
+        private boolean unresolvedOnly = true;
+
+        void add(String message, boolean unresolved) {
+            messages.add(message);
+            unresolvedOnly &= unresolved;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 按内容寻址的反编译结果磁盘缓存。
+// 键为 外部类及其内部类字节 + CFR 选项 的 SHA-256，值为反编译出的源码；
+// 总大小超过上限时按最近访问时间（LRU）淘汰，访问时间用文件修改时间持久化，进程重启后仍然有效
+public class DecompileCache {
+
+    // CFR 版本变化时输出可能不同，作为键的一部分
+    private static final String KEY_VERSION = "cfr-0.152";
+    // 写入失败或进程中途退出留下的临时文件，超过这个时间的在打开缓存时删除；较新的可能是其他进程正在写的
+    private static final long STALE_TMP_MILLIS = 60 * 60 * 1000L;
+
+    private final Path cacheDir;
+    private final long maxBytes;
+    // 访问顺序的 LinkedHashMap，最久未访问的在最前面
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DecompileCache(Path cacheDir, long maxBytes) throws IOException {
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(cacheDir);
+        loadEntries();
+    }
+
+    // cache.enabled 为 false 时返回 null
+    public static DecompileCache fromConfig(AppConfig config) {
+        if (!config.getBoolean("cache.enabled", false)) {
+            return null;
+        }
+        Path dir = Paths.get(config.get("cache.dir", Paths.get(System.getProperty("user.home"), ".jar-to-maven", "cache").toString()));
+        long maxBytes = config.getInt("cache.maxSizeMb", 512) * 1024L * 1024L;
+        try {
+            return new DecompileCache(dir, maxBytes);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open decompile cache: " + dir, e);
+        }
+    }
+
+    // classes 的键为类路径，值为类字节；选项按键排序后参与计算，与 Map 的遍历顺序无关
+    public static String key(Map<String, String> options, Map<String, byte[]> classes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(KEY_VERSION.getBytes(StandardCharsets.UTF_8));
+            for (Map.Entry<String, String> option : new TreeMap<>(options).entrySet()) {
+                digest.update((option.getKey() + "=" + option.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            for (Map.Entry<String, byte[]> entry : new TreeMap<>(classes).entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(entry.getValue());
+            }
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String get(String key) {
+        Path file = pathOf(key);
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+        try {
+            String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return source;
+        } catch (IOException e) {
+            // 可能被其他进程淘汰，按未命中处理
+            synchronized (this) {
+                Long size = entries.remove(key);
+                if (size != null) {
+                    totalBytes -= size;
+                }
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    public void put(String key, String source) {
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        Path file = pathOf(key);
+        try {
+            Files.createDirectories(file.getParent());
+            // 先写临时文件再原子替换，避免并发读到半个文件
+            Path tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+            boolean moved = false;
+            try {
+                Files.write(tmp, bytes);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                moved = true;
+            } finally {
+                if (!moved) {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write decompile cache entry " + key + ": " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            Long previous = entries.put(key, (long) bytes.length);
+            totalBytes += bytes.length - (previous == null ? 0 : previous);
+            evictIfNeeded();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + ", size=" + getTotalBytes() / 1024 + "KB";
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            evictions.incrementAndGet();
+            try {
+                Files.deleteIfExists(pathOf(eldest.getKey()));
+            } catch (IOException e) {
+                System.err.println("Failed to evict decompile cache entry " + eldest.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Path pathOf(String key) {
+        return cacheDir.resolve(key.substring(0, 2)).resolve(key + ".java");
+    }
+
+    private void loadEntries() throws IOException {
+        List<Path> files;
+        List<Path> tmpFiles;
+        try (Stream<Path> walk = Files.walk(cacheDir, 2)) {
+            List<Path> all = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+            files = all.stream().filter(p -> p.getFileName().toString().endsWith(".java")).collect(Collectors.toList());
+            tmpFiles = all.stream().filter(p -> p.getFileName().toString().endsWith(".tmp")).collect(Collectors.toList());
+        }
+        long staleBefore = System.currentTimeMillis() - STALE_TMP_MILLIS;
+        for (Path tmp : tmpFiles) {
+            try {
+                if (Files.getLastModifiedTime(tmp).toMillis() < staleBefore) {
+                    Files.deleteIfExists(tmp);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to remove stale decompile cache file " + tmp + ": " + e.getMessage());
+            }
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path file : files) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        files.sort(Comparator.comparing(modified::get));
+        synchronized (this) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long size = Files.size(file);
+                entries.put(name.substring(0, name.length() - 5), size);
+                totalBytes += size;
+            }
+            evictIfNeeded();
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.example;
+
+import org.benf.cfr.reader.api.ClassFileSource;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// 整包反编译引擎：按外部类查缓存、按 RoutingPolicy 在 CFR 和快速后端之间分配，
+// 一个后端没有输出的外部类自动交给另一个后端；所有输出都交给同一个 OutputSinkFactory
+public class DecompileEngine {
+
+    private final Map<String, String> options;
+    private final DecompileCache cache;
+    private final DecompileMetrics metrics;
+    private final DecompileGuard guard;
+    private final DecompilerBackend cfr;
+    // 为 null 时不路由也不回退，全部交给 CFR
+    private final DecompilerBackend fast;
+    // 为 null 时不路由，fast 只用于回退
+    private final RoutingPolicy routing;
+    private final boolean fallback;
+
+    public DecompileEngine() {
+        this(defaultOptions());
+    }
+
+    public DecompileEngine(Map<String, String> options) {
+        this(options, null);
+    }
+
+    // cache 为 null 时不使用缓存
+    public DecompileEngine(Map<String, String> options, DecompileCache cache) {
+        this(options, cache, new DecompileMetrics());
+    }
+
+    public DecompileEngine(Map<String, String> options, DecompileCache cache, DecompileMetrics metrics) {
+        this(options, cache, metrics, null);
+    }
+
+    // guard 为 null 时 CFR 在调用线程中运行，不限时
+    public DecompileEngine(Map<String, String> options, DecompileCache cache, DecompileMetrics metrics,
+                           DecompileGuard guard) {
+        this(options, cache, metrics, guard, null, null, false);
+    }
+
+    // fallback 为 true 时，CFR 没有输出的外部类改用 fast 生成，fast 没有输出的改用 CFR
+    public DecompileEngine(Map<String, String> options, DecompileCache cache, DecompileMetrics metrics,
+                           DecompileGuard guard, DecompilerBackend fast, RoutingPolicy routing, boolean fallback) {
+        this.options = new HashMap<>(options);
+        this.cache = cache;
+        this.metrics = metrics;
+        this.guard = guard;
+        this.cfr = new CfrBackend(options, metrics, guard);
+        this.fast = fast;
+        this.routing = fast == null ? null : routing;
+        this.fallback = fast != null && fallback;
+    }
+
+    // 默认选项，缓存、指标、超时保护与后端路由按配置创建
+    public static DecompileEngine fromConfig(AppConfig config) {
+        return fromConfig(config, DecompileCache.fromConfig(config));
+    }
+
+    public static DecompileEngine fromConfig(AppConfig config, DecompileCache cache) {
+        DecompileMetrics metrics = DecompileMetrics.fromConfig(config);
+        return new DecompileEngine(defaultOptions(), cache, metrics, DecompileGuard.fromConfig(config),
+                SkeletonBackend.fromConfig(config, metrics), RoutingPolicy.fromConfig(config),
+                config.getBoolean("engine.fallback", true));
+    }
+
+    public static Map<String, String> defaultOptions() {
+        Map<String, String> options = new HashMap<>();
+        options.put("showversion", "false");
+        options.put("decodestringswitch", "true");
+        options.put("sugarenums", "true");
+        options.put("decodelambdas", "true");
+        options.put("hidebridgemethods", "true");
+        return options;
+    }
+
+    // 超时或堆压力下重试单个类时使用：关闭 lambda、字符串/枚举 switch 还原和失败后的恢复重试，速度快、内存少，代价是可读性
+    public static Map<String, String> cheapOptions(Map<String, String> options) {
+        Map<String, String> cheap = new HashMap<>(options);
+        cheap.put("decodelambdas", "false");
+        cheap.put("decodestringswitch", "false");
+        cheap.put("decodeenumswitch", "false");
+        cheap.put("sugarenums", "false");
+        cheap.put("recover", "false");
+        return cheap;
+    }
+
+    // 编译校验失败的类换用的选项：强制拓扑排序、异常裁剪与聚合、重命名重复成员和非法标识符，
+    // 针对 CFR 生成无法编译的代码的常见原因，输出更啰嗦但更容易编译通过
+    public static Map<String, String> alternativeOptions(Map<String, String> options) {
+        Map<String, String> alternative = new HashMap<>(options);
+        alternative.put("forcetopsort", "true");
+        alternative.put("forceexceptionprune", "true");
+        alternative.put("aexagg", "true");
+        alternative.put("renamedupmembers", "true");
+        alternative.put("renameillegalidents", "true");
+        return alternative;
+    }
+
+    // 换用另一组选项，共享缓存、指标、超时保护和后端路由
+    public DecompileEngine withOptions(Map<String, String> options) {
+        return new DecompileEngine(options, cache, metrics, guard, fast, routing, fallback);
+    }
+
+    public Map<String, String> getOptions() {
+        return Collections.unmodifiableMap(options);
+    }
+
+    public DecompileCache getCache() {
+        return cache;
+    }
+
+    public DecompileMetrics getMetrics() {
+        return metrics;
+    }
+
+    // classPaths 为 JarClassFileSource.toClassPath 形式的类路径，内部类随外部类一起输出
+    public void decompile(ClassFileSource source, List<String> classPaths, OutputSinkFactory outputSinkFactory) {
+        PreloadedSource preloaded = new PreloadedSource(source);
+        if (cache == null && routing == null && !fallback) {
+            cfr.decompile(preloaded, classPaths, outputSinkFactory);
+            return;
+        }
+        // 命中缓存的外部类（连同内部类）直接输出缓存的源码，路由到快速后端的不查缓存，其余的交给 CFR 并把结果写入缓存。
+        // 为路由和缓存键读出的类字节经 PreloadedSource 交给后端，每个条目只解压一次
+        List<String> primary = new ArrayList<>();
+        List<String> routed = new ArrayList<>();
+        Map<String, String> missKeys = new HashMap<>();
+        for (Map.Entry<String, List<String>> group : groupByOuterClass(classPaths).entrySet()) {
+            if (cache == null && routing == null) {
+                primary.addAll(group.getValue());
+                continue;
+            }
+            Map<String, byte[]> classes = new HashMap<>();
+            for (String path : group.getValue()) {
+                Pair<byte[], String> content;
+                try {
+                    content = preloaded.preload(path);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to read class " + path, e);
+                }
+                if (content != null) {
+                    classes.put(path, content.getFirst());
+                }
+            }
+            if (routing != null && routing.preferFast(group.getKey(), classes)) {
+                routed.addAll(group.getValue());
+                continue;
+            }
+            if (cache == null) {
+                primary.addAll(group.getValue());
+                continue;
+            }
+            String key = DecompileCache.key(options, classes);
+            String cached = cache.get(key);
+            if (cached != null) {
+                writeJava(outputSinkFactory, new DecompilerBackend.Source(group.getKey(), cached, false));
+            } else {
+                primary.addAll(group.getValue());
+                missKeys.put(group.getKey(), key);
+            }
+        }
+        Set<String> emitted = ConcurrentHashMap.newKeySet();
+        OutputSinkFactory sink = new CachingSinkFactory(outputSinkFactory, missKeys, emitted);
+        Set<String> fastFailed = new HashSet<>();
+        if (!routed.isEmpty()) {
+            run(fast, preloaded, routed, sink);
+            if (fallback) {
+                for (Map.Entry<String, List<String>> group : missing(routed, emitted).entrySet()) {
+                    fastFailed.add(group.getKey());
+                    primary.addAll(group.getValue());
+                }
+            }
+        }
+        run(cfr, preloaded, primary, sink);
+        if (fallback) {
+            // 快速后端已经失败过的类不再交回去
+            TreeMap<String, List<String>> missing = missing(primary, emitted);
+            missing.keySet().removeAll(fastFailed);
+            List<String> retry = new ArrayList<>();
+            for (List<String> group : missing.values()) {
+                retry.addAll(group);
+            }
+            run(fast, preloaded, retry, sink);
+        }
+    }
+
+    // 开启回退时后端整批失败只记录，没有输出的类由另一个后端处理
+    private void run(DecompilerBackend backend, ClassFileSource source, List<String> classPaths, OutputSinkFactory sink) {
+        if (classPaths.isEmpty()) {
+            return;
+        }
+        if (!fallback) {
+            backend.decompile(source, classPaths, sink);
+            return;
+        }
+        try {
+            backend.decompile(source, classPaths, sink);
+        } catch (RuntimeException e) {
+            System.err.println("Decompiler backend " + backend.getName() + " failed on a batch of "
+                    + classPaths.size() + " classes, falling back for the classes it did not emit");
+            e.printStackTrace();
+        }
+    }
+
+    // 没有输出的外部类，只算类文件确实存在的（孤立的内部类分组没有外部类文件，CFR 按内部类名输出）和真正的类型
+    private TreeMap<String, List<String>> missing(List<String> classPaths, Set<String> emitted) {
+        TreeMap<String, List<String>> groups = groupByOuterClass(classPaths);
+        groups.keySet().removeAll(emitted);
+        Iterator<Map.Entry<String, List<String>>> iterator = groups.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, List<String>> group = iterator.next();
+            String outerPath = group.getKey();
+            String simpleName = outerPath.substring(outerPath.lastIndexOf('/') + 1);
+            if (!group.getValue().contains(outerPath + ".class") || "package-info".equals(simpleName)
+                    || "module-info".equals(simpleName)) {
+                iterator.remove();
+            } else {
+                metrics.recordFailure(DecompileMetrics.FAILURE_FALLBACK);
+            }
+        }
+        return groups;
+    }
+
+    // 并行模式：按外部类分组（内部类与外部类在同一批），按包名排序后切成若干批，
+    // 每批在线程池中用独立的 CfrDriver 处理，批内仍共享 CFR 类缓存。批外的类在需要推断类型时照样通过 source 加载，
+    // 只是在各批中各加载一次，输出与顺序模式相同（JarDecompilerTest 在真实 JAR 上逐字节比较）。
+    // source 与 outputSinkFactory 会被多个线程同时调用，必须是线程安全的
+    public void decompile(ClassFileSource source, List<String> classPaths, OutputSinkFactory outputSinkFactory,
+                          ExecutorService executor, int parallelism) {
+        if (parallelism <= 1) {
+            decompile(source, classPaths, outputSinkFactory);
+            return;
+        }
+        // 每个线程分到多批，避免个别大包拖慢整体
+        List<List<String>> batches = partition(classPaths, parallelism * 4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<String> batch : batches) {
+            futures.add(executor.submit(() -> decompile(source, batch, outputSinkFactory)));
+        }
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while decompiling", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new RuntimeException("Failed to decompile batch", e.getCause());
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // 按外部类分组后按路径排序（同包的类相邻），再切成不超过 batchCount 批，同一外部类不会被拆开
+    static List<List<String>> partition(List<String> classPaths, int batchCount) {
+        TreeMap<String, List<String>> groups = groupByOuterClass(classPaths);
+        int batchSize = Math.max(1, (classPaths.size() + batchCount - 1) / batchCount);
+        List<List<String>> batches = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        for (List<String> group : groups.values()) {
+            current.addAll(group);
+            if (current.size() >= batchSize) {
+                batches.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    static TreeMap<String, List<String>> groupByOuterClass(List<String> classPaths) {
+        TreeMap<String, List<String>> groups = new TreeMap<>();
+        for (String path : classPaths) {
+            groups.computeIfAbsent(outerClassPath(path), k -> new ArrayList<>()).add(path);
+        }
+        return groups;
+    }
+
+    // a/B$C$1.class -> a/B
+    static String outerClassPath(String classPath) {
+        int slash = classPath.lastIndexOf('/');
+        int dollar = classPath.indexOf('$', slash + 2);
+        if (dollar > 0) {
+            return classPath.substring(0, dollar);
+        }
+        return classPath.endsWith(".class") ? classPath.substring(0, classPath.length() - 6) : classPath;
+    }
+
+    // 按下游 Sink 支持的形式输出一个类的源码
+    static void writeJava(OutputSinkFactory outputSinkFactory, SinkReturns.Decompiled decompiled) {
+        List<OutputSinkFactory.SinkClass> supported = outputSinkFactory.getSupportedSinks(OutputSinkFactory.SinkType.JAVA,
+                Arrays.asList(OutputSinkFactory.SinkClass.DECOMPILED, OutputSinkFactory.SinkClass.STRING));
+        if (supported != null && !supported.isEmpty() && supported.get(0) == OutputSinkFactory.SinkClass.DECOMPILED) {
+            outputSinkFactory.<SinkReturns.Decompiled>getSink(OutputSinkFactory.SinkType.JAVA,
+                    OutputSinkFactory.SinkClass.DECOMPILED).write(decompiled);
+        } else {
+            outputSinkFactory.<String>getSink(OutputSinkFactory.SinkType.JAVA,
+                    OutputSinkFactory.SinkClass.STRING).write(decompiled.getJava());
+        }
+    }
+
+    // 返回已经读出的类字节，避免后端再解压一遍；CFR 解析类型时也会读取路由到快速后端的类，
+    // 所以字节保留到本次 decompile 调用结束（CFR 自己为整批保留的解析结果远大于原始字节）。
+    // 读取字节数在这里统计，只算真正从 delegate 读出的
+    private class PreloadedSource implements ClassFileSource {
+        private final ClassFileSource delegate;
+        private final Map<String, Pair<byte[], String>> contents = new ConcurrentHashMap<>();
+
+        PreloadedSource(ClassFileSource delegate) {
+            this.delegate = delegate;
+        }
+
+        Pair<byte[], String> preload(String path) throws IOException {
+            Pair<byte[], String> content = read(path);
+            if (content != null) {
+                contents.put(path, content);
+            }
+            return content;
+        }
+
+        private Pair<byte[], String> read(String path) throws IOException {
+            Pair<byte[], String> content = delegate.getClassFileContent(path);
+            if (content != null) {
+                metrics.addBytesRead(content.getFirst().length);
+            }
+            return content;
+        }
+
+        @Override
+        public void informAnalysisRelativePathDetail(String usePath, String classFilePath) {
+            delegate.informAnalysisRelativePathDetail(usePath, classFilePath);
+        }
+
+        @Override
+        public Collection<String> addJar(String jarPath) {
+            return delegate.addJar(jarPath);
+        }
+
+        @Override
+        public String getPossiblyRenamedPath(String path) {
+            return delegate.getPossiblyRenamedPath(path);
+        }
+
+        @Override
+        public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+            Pair<byte[], String> content = contents.get(path);
+            return content != null ? content : read(path);
+        }
+    }
+
+    // 向后端请求带包名/类名的 DECOMPILED 输出，记录已输出的外部类；按外部类找到对应的缓存键写入缓存（降级结果除外），
+    // 再转交给下游 Sink
+    private class CachingSinkFactory implements OutputSinkFactory {
+        private final OutputSinkFactory delegate;
+        private final Map<String, String> keys;
+        private final Set<String> emitted;
+
+        CachingSinkFactory(OutputSinkFactory delegate, Map<String, String> keys, Set<String> emitted) {
+            this.delegate = delegate;
+            this.keys = keys;
+            this.emitted = emitted;
+        }
+
+        @Override
+        public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+            if (sinkType == SinkType.JAVA && available.contains(SinkClass.DECOMPILED)) {
+                return Collections.singletonList(SinkClass.DECOMPILED);
+            }
+            return delegate.getSupportedSinks(sinkType, available);
+        }
+
+        @Override
+        public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+            if (sinkType != SinkType.JAVA || sinkClass != SinkClass.DECOMPILED) {
+                return delegate.getSink(sinkType, sinkClass);
+            }
+            return t -> {
+                SinkReturns.Decompiled decompiled = (SinkReturns.Decompiled) t;
+                String outerPath = decompiled.getPackageName().isEmpty() ? decompiled.getClassName()
+                        : decompiled.getPackageName().replace('.', '/') + "/" + decompiled.getClassName();
+                String key = keys.get(outerPath);
+                boolean degraded = decompiled instanceof DecompilerBackend.Source
+                        && ((DecompilerBackend.Source) decompiled).isDegraded();
+                if (key != null && !degraded) {
+                    cache.put(key, decompiled.getJava());
+                }
+                writeJava(delegate, decompiled);
+                emitted.add(outerPath);
+            };
+        }
+    }
+}
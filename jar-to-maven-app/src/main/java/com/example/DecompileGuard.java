@@ -0,0 +1,316 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 单个类的反编译时间预算与堆内存保护。
+// CFR 在独立的工作线程中运行，通过 PROGRESS 输出报告当前分析的类；看门狗线程定期检查，
+// 当前类超出时间预算，或老年代在最近一次 GC 之后的占用率超过上限时（取当前类耗时最长的一次运行），放弃该次运行并返回被取消的类，
+// 由调用方决定重试或生成签名存根。工作线程正在执行下游 Sink（写盘、写缓存）时不会被取消。
+// 放弃不会强行停止线程（不使用 Thread.stop）：调用方立即返回，工作线程被中断、降为最低优先级，
+// 其后的输出全部丢弃，并在下一个检查点（CFR 读类、开始分析下一个类）抛出 Abandoned 退出。
+// 每次运行都有自己的 CfrDriver，被放弃的运行的状态随之丢弃。因此时间预算限制的是调用方的等待时间，
+// 卡在单个方法里的工作线程仍会占用 CPU 和它的整个 CfrDriver 堆，直到它到达下一个检查点。
+// 被放弃但尚未退出的运行单独计数：调用方据此跳过重试，被放弃的线程达到 MAX_ABANDONED 个后不再放弃新的运行，
+// 超时和堆检查暂停生效，直到其中有线程退出
+public class DecompileGuard {
+
+    public static final String REASON_TIMEOUT = "timeout";
+    public static final String REASON_HEAP = "heap";
+
+    private static final long TICK_MILLIS = 50;
+    // 因堆压力停止一个类后，等待 GC 回收的时间，避免连续误杀
+    private static final long HEAP_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // 同时存在的被放弃线程的上限
+    private static final int MAX_ABANDONED = 4;
+
+    private static final MemoryPoolMXBean TENURED_POOL = findTenuredPool();
+
+    private static final Set<GuardedRun> ACTIVE = ConcurrentHashMap.newKeySet();
+    // 已被放弃、工作线程还没有退出的运行
+    private static final Set<GuardedRun> ABANDONED = ConcurrentHashMap.newKeySet();
+    private static ScheduledExecutorService watchdog;
+    // nanoTime 的起点是任意的，可能为负，用单独的标志表示冷却期是否开始过，只比较差值
+    private static boolean heapCooldown;
+    private static long heapCooldownUntil;
+
+    private final long classTimeoutNanos;
+    private final double heapLimit;
+
+    // classTimeoutMillis 为 0 时不限时，heapLimit 为 0 时不检查堆（取值为占最大堆的比例，如 0.9）
+    public DecompileGuard(long classTimeoutMillis, double heapLimit) {
+        this.classTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(classTimeoutMillis);
+        this.heapLimit = heapLimit;
+    }
+
+    // 两项都关闭时返回 null，CFR 直接在调用线程中运行
+    public static DecompileGuard fromConfig(AppConfig config) {
+        long timeout = config.getInt("decompile.classTimeoutMs", 0);
+        double heapLimit;
+        try {
+            heapLimit = Double.parseDouble(config.get("decompile.heapLimit", "0"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for decompile.heapLimit", e);
+        }
+        return timeout <= 0 && heapLimit <= 0 ? null : new DecompileGuard(timeout, heapLimit);
+    }
+
+    public long getClassTimeoutMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(classTimeoutNanos);
+    }
+
+    // 在工作线程中执行 task，正常结束返回 null，被取消时返回取消原因与当前类。
+    // 工作线程抛出的 OutOfMemoryError 视为当前类的堆取消，其他异常原样抛出
+    public Cancellation run(Task task) {
+        GuardedRun run = new GuardedRun(this);
+        Thread worker = new Thread(() -> {
+            try {
+                task.run(run);
+            } catch (OutOfMemoryError e) {
+                run.cancel(REASON_HEAP, false);
+            } catch (GuardedRun.Abandoned e) {
+                // 已被放弃，在检查点退出
+            } catch (Throwable t) {
+                run.error = t;
+            } finally {
+                run.exit();
+            }
+        }, "cfr-guarded");
+        worker.setDaemon(true);
+        run.worker = worker;
+        ACTIVE.add(run);
+        ensureWatchdog();
+        worker.start();
+        try {
+            run.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.cancel("interrupted", true);
+            throw new RuntimeException("Interrupted while decompiling", e);
+        } finally {
+            ACTIVE.remove(run);
+        }
+        if (run.cancellation != null) {
+            return run.cancellation;
+        }
+        if (run.error instanceof RuntimeException) {
+            throw (RuntimeException) run.error;
+        }
+        if (run.error instanceof Error) {
+            throw (Error) run.error;
+        }
+        if (run.error != null) {
+            throw new RuntimeException(run.error);
+        }
+        return null;
+    }
+
+    // 被放弃、仍在运行的工作线程数
+    public static int getAbandonedRuns() {
+        return ABANDONED.size();
+    }
+
+    // 等待被放弃的工作线程全部退出，最多等 timeoutMillis 毫秒；返回是否已全部退出
+    public static boolean awaitAbandonedRuns(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!ABANDONED.isEmpty()) {
+            if (deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static synchronized void ensureWatchdog() {
+        if (watchdog != null) {
+            return;
+        }
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "decompile-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleAtFixedRate(DecompileGuard::check, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void check() {
+        try {
+            long now = System.nanoTime();
+            GuardedRun longest = null;
+            for (GuardedRun run : ACTIVE) {
+                long started = run.classStart;
+                if (run.currentClass == null || run.inSink) {
+                    continue;
+                }
+                if (run.guard.classTimeoutNanos > 0 && now - started > run.guard.classTimeoutNanos) {
+                    run.cancel(REASON_TIMEOUT, true);
+                } else if (run.guard.heapLimit > 0 && (longest == null || started < longest.classStart)) {
+                    longest = run;
+                }
+            }
+            boolean coolingDown = heapCooldown && now - heapCooldownUntil < 0;
+            if (longest != null && !coolingDown && heapUsage() > longest.guard.heapLimit) {
+                if (longest.cancel(REASON_HEAP, true)) {
+                    heapCooldown = true;
+                    heapCooldownUntil = now + HEAP_COOLDOWN_NANOS;
+                }
+            }
+        } catch (Throwable t) {
+            // 看门狗不能因为单次检查失败而退出
+            t.printStackTrace();
+        }
+    }
+
+    // 老年代最近一次 GC 之后的占用率。直接取堆的已用量会把尚未回收的垃圾算进去，临近 GC 时健康的堆也会超限；
+    // 还没有发生过 GC 或找不到老年代时返回 0，不触发取消
+    private static double heapUsage() {
+        MemoryPoolMXBean tenured = TENURED_POOL;
+        if (tenured == null) {
+            return 0;
+        }
+        MemoryUsage usage = tenured.getCollectionUsage();
+        if (usage == null) {
+            return 0;
+        }
+        long max = usage.getMax() > 0 ? usage.getMax() : ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        return max > 0 ? (double) usage.getUsed() / max : 0;
+    }
+
+    // 支持回收后用量的堆内存池中容量最大的一个（G1 Old Gen、PS Old Gen、Tenured Gen 等）
+    private static MemoryPoolMXBean findTenuredPool() {
+        MemoryPoolMXBean tenured = null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) {
+                continue;
+            }
+            if (tenured == null || pool.getUsage().getMax() > tenured.getUsage().getMax()) {
+                tenured = pool;
+            }
+        }
+        return tenured;
+    }
+
+    public interface Task {
+        void run(GuardedRun run);
+    }
+
+    // 一次受保护的 CFR 运行，由 Sink 包装层报告当前类和进出下游 Sink
+    public static class GuardedRun {
+        private final DecompileGuard guard;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Thread worker;
+        private volatile String currentClass;
+        private volatile long classStart;
+        private volatile boolean inSink;
+        private volatile Cancellation cancellation;
+        private volatile Throwable error;
+
+        GuardedRun(DecompileGuard guard) {
+            this.guard = guard;
+        }
+
+        // className 为外部类的类路径（a/b/C）
+        public void startClass(String className) {
+            classStart = System.nanoTime();
+            currentClass = className;
+        }
+
+        // 返回 false 表示本次运行已被取消，不应再向下游输出
+        public synchronized boolean enterSink() {
+            if (cancellation != null) {
+                return false;
+            }
+            inSink = true;
+            return true;
+        }
+
+        public synchronized void exitSink() {
+            inSink = false;
+            // 下游写盘的时间不计入下一个类
+            classStart = System.nanoTime();
+        }
+
+        public boolean isCancelled() {
+            return cancellation != null;
+        }
+
+        // 在工作线程中调用：本次运行已被放弃时抛出 Abandoned，让 CFR 尽快退出
+        public void checkpoint() {
+            if (cancellation != null && Thread.currentThread() == worker) {
+                throw new Abandoned();
+            }
+        }
+
+        private synchronized boolean cancel(String reason, boolean abandon) {
+            if (cancellation != null || done.getCount() == 0 || (abandon && inSink)) {
+                return false;
+            }
+            boolean abandoning = abandon && worker != Thread.currentThread();
+            if (abandoning && ABANDONED.size() >= MAX_ABANDONED) {
+                // 被放弃的线程已达上限，让这次运行继续，下次检查时再试
+                return false;
+            }
+            cancellation = new Cancellation(currentClass, reason);
+            if (abandoning) {
+                ABANDONED.add(this);
+                worker.setPriority(Thread.MIN_PRIORITY);
+                worker.interrupt();
+            }
+            done.countDown();
+            return true;
+        }
+
+        // 工作线程退出时调用，与 cancel 互斥，被放弃的运行在这里移出计数
+        private synchronized void exit() {
+            done.countDown();
+            ABANDONED.remove(this);
+        }
+
+        // 用 Error 而不是 RuntimeException：CFR 按类捕获 Exception 后会继续分析下一个类
+        public static class Abandoned extends Error {
+            private static final long serialVersionUID = 1L;
+
+            Abandoned() {
+                super("Guarded decompilation was abandoned", null, false, false);
+            }
+        }
+    }
+
+    public static class Cancellation {
+        private final String className;
+        private final String reason;
+
+        Cancellation(String className, String reason) {
+            this.className = className;
+            this.reason = reason;
+        }
+
+        // 被取消时正在分析的外部类路径，可能为 null（尚未开始分析任何类）
+        public String getClassName() {
+            return className;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return className + " (" + reason + ")";
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// 反编译过程的运行指标：各阶段耗时、单个类的反编译耗时直方图、最慢的 N 个类、读写字节数和失败次数。
+// 所有方法线程安全；阶段耗时同时记录墙钟时间（该阶段至少有一个线程在运行的时间，重叠部分只算一次）
+// 和各线程耗时之和，并行时后者可能大于前者。
+// 可导出为 JSON 和 Prometheus 文本格式
+public class DecompileMetrics {
+
+    public static final String PHASE_STRUCTURE = "structure";
+    public static final String PHASE_PRUNE = "prune";
+    public static final String PHASE_DECOMPILE = "decompile";
+    public static final String PHASE_RESOURCES = "resources";
+    public static final String PHASE_DEPENDENCIES = "dependencies";
+    // 依赖分析中的类扫描，可能与反编译并行，单独计时
+    public static final String PHASE_CLASS_SCAN = "class_scan";
+    // 依赖分析中内嵌 pom 的并行解析与合并
+    public static final String PHASE_POM_RECONSTRUCT = "pom_reconstruct";
+    public static final String PHASE_POM_WRITE = "pom_write";
+    // 生成的源码的编译校验
+    public static final String PHASE_VERIFY = "verify";
+
+    public static final String FAILURE_CLASS = "class";
+    public static final String FAILURE_JAR = "jar";
+    public static final String FAILURE_NESTED_JAR = "nested_jar";
+    public static final String FAILURE_POM = "pom";
+    public static final String FAILURE_RESOURCE = "resource";
+    public static final String FAILURE_TIMEOUT = "timeout";
+    public static final String FAILURE_HEAP = "heap";
+    public static final String FAILURE_SKELETON = "skeleton";
+    // 编译校验后仍无法编译的源文件
+    public static final String FAILURE_COMPILE = "compile";
+    // 一个后端没有输出、改由另一个后端处理的外部类
+    public static final String FAILURE_FALLBACK = "fallback";
+
+    // 直方图桶上限（毫秒），最后隐含 +Inf
+    private static final long[] BUCKETS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final int slowestCount;
+    private final Map<String, Phase> phases = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final LongAdder[] buckets = new LongAdder[BUCKETS_MS.length + 1];
+    private final LongAdder classCount = new LongAdder();
+    private final LongAdder classNanos = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    // 按耗时排序的小顶堆，只保留最慢的 slowestCount 个
+    private final PriorityQueue<ClassTiming> slowest = new PriorityQueue<>();
+
+    public DecompileMetrics() {
+        this(20);
+    }
+
+    public DecompileMetrics(int slowestCount) {
+        this.slowestCount = slowestCount;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public static DecompileMetrics fromConfig(AppConfig config) {
+        return new DecompileMetrics(config.getInt("metrics.slowestClasses", 20));
+    }
+
+    // try (DecompileMetrics.Timer ignored = metrics.time(PHASE_DECOMPILE)) { ... }
+    public Timer time(String phase) {
+        return new Timer(this, phase);
+    }
+
+    // 在计时器之外测得的一段不与其他运行重叠的耗时，同时计入墙钟时间和线程时间
+    public void addPhase(String phase, long nanos) {
+        phase(phase).add(nanos);
+    }
+
+    private Phase phase(String phase) {
+        return phases.computeIfAbsent(phase, k -> new Phase());
+    }
+
+    public void recordClass(String className, long nanos) {
+        classCount.increment();
+        classNanos.add(nanos);
+        // 桶上限包含在内（Prometheus 的 le 语义），按纳秒比较，不先截断为毫秒
+        int bucket = 0;
+        while (bucket < BUCKETS_MS.length && nanos > BUCKETS_MS[bucket] * 1_000_000) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        if (slowestCount <= 0) {
+            return;
+        }
+        synchronized (slowest) {
+            if (slowest.size() < slowestCount) {
+                slowest.add(new ClassTiming(className, nanos));
+            } else if (slowest.peek().nanos < nanos) {
+                slowest.poll();
+                slowest.add(new ClassTiming(className, nanos));
+            }
+        }
+    }
+
+    public void recordFailure(String kind) {
+        failures.computeIfAbsent(kind, k -> new LongAdder()).increment();
+    }
+
+    public void addBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    public void addBytesWritten(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    // 墙钟时间
+    public long getPhaseNanos(String phase) {
+        Phase p = phases.get(phase);
+        return p == null ? 0 : p.getWallNanos(System.nanoTime());
+    }
+
+    // 各线程耗时之和
+    public long getPhaseThreadNanos(String phase) {
+        Phase p = phases.get(phase);
+        return p == null ? 0 : p.threadNanos.sum();
+    }
+
+    public long getFailures(String kind) {
+        LongAdder adder = failures.get(kind);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long getClassCount() {
+        return classCount.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    // 耗时从高到低
+    public List<ClassTiming> getSlowestClasses() {
+        List<ClassTiming> result;
+        synchronized (slowest) {
+            result = new ArrayList<>(slowest);
+        }
+        result.sort(Collections.reverseOrder());
+        return result;
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append("  \"phases\": {");
+        appendPhases(sb, false);
+        sb.append("},\n  \"phaseThreadSeconds\": {");
+        appendPhases(sb, true);
+        sb.append("},\n  \"classes\": {\"count\": ").append(classCount.sum())
+                .append(", \"totalSeconds\": ").append(seconds(classNanos.sum()))
+                .append(", \"histogram\": [");
+        for (int i = 0; i < buckets.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append("{\"le\": ")
+                    .append(i < BUCKETS_MS.length ? seconds(BUCKETS_MS[i] * 1_000_000) : "\"+Inf\"")
+                    .append(", \"count\": ").append(buckets[i].sum()).append('}');
+        }
+        sb.append("]},\n  \"slowest\": [");
+        List<ClassTiming> slowestClasses = getSlowestClasses();
+        for (int i = 0; i < slowestClasses.size(); i++) {
+            ClassTiming timing = slowestClasses.get(i);
+            sb.append(i == 0 ? "\n    " : ",\n    ").append("{\"class\": \"").append(escapeJson(timing.className))
+                    .append("\", \"seconds\": ").append(seconds(timing.nanos)).append('}');
+        }
+        sb.append(slowestClasses.isEmpty() ? "" : "\n  ").append("],\n");
+        sb.append("  \"bytesRead\": ").append(bytesRead.sum()).append(",\n");
+        sb.append("  \"bytesWritten\": ").append(bytesWritten.sum()).append(",\n");
+        sb.append("  \"failures\": {");
+        appendJsonMap(sb, failures);
+        sb.append("}\n}\n");
+        return sb.toString();
+    }
+
+    public String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        long now = System.nanoTime();
+        Map<String, Phase> sortedPhases = new TreeMap<>(phases);
+        sb.append("# HELP jar2maven_phase_seconds_total Wall-clock time during which the phase was running\n");
+        sb.append("# TYPE jar2maven_phase_seconds_total counter\n");
+        for (Map.Entry<String, Phase> entry : sortedPhases.entrySet()) {
+            sb.append("jar2maven_phase_seconds_total{phase=\"").append(entry.getKey()).append("\"} ")
+                    .append(seconds(entry.getValue().getWallNanos(now))).append('\n');
+        }
+        sb.append("# HELP jar2maven_phase_thread_seconds_total Time spent per phase, summed over threads\n");
+        sb.append("# TYPE jar2maven_phase_thread_seconds_total counter\n");
+        for (Map.Entry<String, Phase> entry : sortedPhases.entrySet()) {
+            sb.append("jar2maven_phase_thread_seconds_total{phase=\"").append(entry.getKey()).append("\"} ")
+                    .append(seconds(entry.getValue().threadNanos.sum())).append('\n');
+        }
+        sb.append("# HELP jar2maven_class_decompile_seconds Decompile latency per top-level class\n");
+        sb.append("# TYPE jar2maven_class_decompile_seconds histogram\n");
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String le = i < BUCKETS_MS.length ? seconds(BUCKETS_MS[i] * 1_000_000) : "+Inf";
+            sb.append("jar2maven_class_decompile_seconds_bucket{le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+        }
+        sb.append("jar2maven_class_decompile_seconds_sum ").append(seconds(classNanos.sum())).append('\n');
+        sb.append("jar2maven_class_decompile_seconds_count ").append(classCount.sum()).append('\n');
+        sb.append("# HELP jar2maven_slowest_class_seconds Slowest classes of the run\n");
+        sb.append("# TYPE jar2maven_slowest_class_seconds gauge\n");
+        for (ClassTiming timing : getSlowestClasses()) {
+            sb.append("jar2maven_slowest_class_seconds{class=\"").append(escapeLabel(timing.className)).append("\"} ")
+                    .append(seconds(timing.nanos)).append('\n');
+        }
+        sb.append("# TYPE jar2maven_bytes_read_total counter\n");
+        sb.append("jar2maven_bytes_read_total ").append(bytesRead.sum()).append('\n');
+        sb.append("# TYPE jar2maven_bytes_written_total counter\n");
+        sb.append("jar2maven_bytes_written_total ").append(bytesWritten.sum()).append('\n');
+        sb.append("# TYPE jar2maven_failures_total counter\n");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(failures).entrySet()) {
+            sb.append("jar2maven_failures_total{kind=\"").append(entry.getKey()).append("\"} ")
+                    .append(entry.getValue().sum()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // 写出 <name>-metrics.json 与 <name>-metrics.prom
+    public void export(Path dir, String name) throws IOException {
+        Files.createDirectories(dir);
+        Files.write(dir.resolve(name + "-metrics.json"), toJson().getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve(name + "-metrics.prom"), toPrometheus().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // metrics.dir 未配置时不导出
+    public void exportIfConfigured(AppConfig config, String name) {
+        String dir = config.get("metrics.dir", null);
+        if (dir == null) {
+            return;
+        }
+        try {
+            export(java.nio.file.Paths.get(dir), name);
+        } catch (IOException e) {
+            System.err.println("Failed to export metrics to " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private void appendPhases(StringBuilder sb, boolean threadTime) {
+        long now = System.nanoTime();
+        boolean first = true;
+        for (Map.Entry<String, Phase> entry : new TreeMap<>(phases).entrySet()) {
+            Phase phase = entry.getValue();
+            sb.append(first ? "" : ", ").append('"').append(escapeJson(entry.getKey())).append("\": ")
+                    .append(seconds(threadTime ? phase.threadNanos.sum() : phase.getWallNanos(now)));
+            first = false;
+        }
+    }
+
+    private static void appendJsonMap(StringBuilder sb, Map<String, LongAdder> map) {
+        boolean first = true;
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(map).entrySet()) {
+            sb.append(first ? "" : ", ").append('"').append(escapeJson(entry.getKey())).append("\": ")
+                    .append(entry.getValue().sum());
+            first = false;
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+    }
+
+    private static String escapeJson(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    public static class Timer implements AutoCloseable {
+        private final Phase phase;
+        private final long start;
+
+        private Timer(DecompileMetrics metrics, String phase) {
+            this.phase = metrics.phase(phase);
+            this.start = System.nanoTime();
+            this.phase.enter(start);
+        }
+
+        @Override
+        public void close() {
+            long now = System.nanoTime();
+            phase.exit(now, now - start);
+        }
+    }
+
+    // 一个阶段的耗时：active 记录正在计时的线程数，从 0 变为 1 时开始一段墙钟时间，回到 0 时结束
+    private static class Phase {
+        private final LongAdder threadNanos = new LongAdder();
+        private int active;
+        private long busySince;
+        private long wallNanos;
+
+        synchronized void enter(long now) {
+            if (active++ == 0) {
+                busySince = now;
+            }
+        }
+
+        synchronized void exit(long now, long elapsed) {
+            threadNanos.add(elapsed);
+            if (--active == 0) {
+                wallNanos += now - busySince;
+            }
+        }
+
+        synchronized void add(long nanos) {
+            threadNanos.add(nanos);
+            wallNanos += nanos;
+        }
+
+        // 正在运行的部分计到 now 为止
+        synchronized long getWallNanos(long now) {
+            return wallNanos + (active > 0 ? now - busySince : 0);
+        }
+    }
+
+    public static class ClassTiming implements Comparable<ClassTiming> {
+        private final String className;
+        private final long nanos;
+
+        ClassTiming(String className, long nanos) {
+            this.className = className;
+            this.nanos = nanos;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public int compareTo(ClassTiming other) {
+            return Long.compare(nanos, other.nanos);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+// 常驻的按需反编译服务：JAR 只索引一次，请求哪个类才反编译哪个类（连同其内部类），
+// 结果放入按字节数限制大小的 LRU 缓存，并在后台预取同一个包中相邻的类。
+// 通过本机 HTTP 提供给编辑器等工具，省去每个类都启动一次进程的开销：
+//   GET /classes               全部外部类名，每行一个
+//   GET /source?class=a.b.C    类的源码（内部类 a.b.C$D 返回外部类的源码）
+//   GET /stats                 缓存统计
+//   GET /metrics               Prometheus 文本格式的反编译指标
+public class DecompileServer {
+
+    private final ArchiveIndex index;
+    private final JarClassFileSource source;
+    private final DecompileEngine engine;
+    // 外部类路径（a/b/C）-> 该类及其内部类的类路径，按路径排序，相邻的即同包的类
+    private final TreeMap<String, List<String>> groups;
+    private final SourceCache cache;
+    private final int prefetchCount;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor prefetcher;
+    private HttpServer httpServer;
+    // HttpServer.stop 不会关闭外部传入的 executor，由 stop() 负责关闭
+    private ExecutorService httpExecutor;
+
+    public DecompileServer(Path jarPath, AppConfig config) throws IOException {
+        this(ArchiveIndex.open(jarPath), DecompileEngine.fromConfig(config),
+                config.getInt("server.cacheMb", 64) * 1024L * 1024L, config.getInt("server.prefetch", 8));
+    }
+
+    public DecompileServer(ArchiveIndex index, DecompileEngine engine, long cacheBytes, int prefetchCount) {
+        this.index = index;
+        this.source = new JarClassFileSource(index);
+        this.engine = engine;
+        this.cache = new SourceCache(cacheBytes);
+        this.prefetchCount = prefetchCount;
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class") && !entry.getName().startsWith("META-INF/")) {
+                classPaths.add(JarClassFileSource.toClassPath(entry.getName()));
+            }
+        }
+        this.groups = DecompileEngine.groupByOuterClass(classPaths);
+        // 预取是尽力而为的：队列满时丢弃最早的任务，新请求附近的类更可能马上被用到
+        this.prefetcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16), r -> {
+            Thread thread = new Thread(r, "decompile-prefetch");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    // 用法：DecompileServer <JAR> [端口]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DecompileServer <jar> [port]");
+            System.exit(2);
+        }
+        AppConfig config = AppConfig.load();
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : config.getInt("server.port", 8765);
+        DecompileServer server = new DecompileServer(Paths.get(args[0]), config);
+        server.start(port, config.getParallelism());
+        System.out.println("Serving " + args[0] + " (" + server.getClassNames().size() + " classes) on http://127.0.0.1:"
+                + server.getPort());
+    }
+
+    public List<String> getClassNames() {
+        List<String> names = new ArrayList<>(groups.size());
+        for (String outerPath : groups.keySet()) {
+            names.add(outerPath.replace('/', '.'));
+        }
+        return names;
+    }
+
+    // className 可以是 a.b.C、a/b/C 或内部类名；类不存在时返回 null
+    public String getSource(String className) {
+        String outerPath = DecompileEngine.outerClassPath(className.replace('.', '/'));
+        if (!groups.containsKey(outerPath)) {
+            return null;
+        }
+        String cached = cache.get(outerPath);
+        if (cached != null) {
+            return cached;
+        }
+        String java = join(decompileAsync(Collections.singletonList(outerPath)).get(outerPath));
+        prefetchNeighbours(outerPath);
+        return java;
+    }
+
+    public SourceCache getCache() {
+        return cache;
+    }
+
+    public DecompileMetrics getMetrics() {
+        return engine.getMetrics();
+    }
+
+    // 在 127.0.0.1 上监听，port 为 0 时由系统分配
+    public void start(int port, int threads) throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        httpServer.createContext("/classes", exchange -> respond(exchange, 200, "text/plain",
+                String.join("\n", getClassNames()) + "\n"));
+        httpServer.createContext("/source", this::handleSource);
+        httpServer.createContext("/stats", exchange -> respond(exchange, 200, "text/plain", cache + "\n"));
+        httpServer.createContext("/metrics", exchange -> respond(exchange, 200, "text/plain; version=0.0.4",
+                getMetrics().toPrometheus()));
+        httpExecutor = Executors.newFixedThreadPool(Math.max(1, threads));
+        httpServer.setExecutor(httpExecutor);
+        httpServer.start();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdownNow();
+        }
+        prefetcher.shutdownNow();
+    }
+
+    private void handleSource(HttpExchange exchange) throws IOException {
+        String className = queryParameter(exchange.getRequestURI().getRawQuery(), "class");
+        if (className == null || className.isEmpty()) {
+            respond(exchange, 400, "text/plain", "Missing parameter: class\n");
+            return;
+        }
+        try {
+            String java = getSource(className);
+            if (java == null) {
+                respond(exchange, 404, "text/plain", "Class not found: " + className + "\n");
+            } else {
+                respond(exchange, 200, "text/x-java-source", java);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to decompile " + className);
+            e.printStackTrace();
+            respond(exchange, 500, "text/plain", "Failed to decompile " + className + ": " + e.getMessage() + "\n");
+        }
+    }
+
+    // 同包中排在它之后的若干个类，一次 CFR 运行一起反编译
+    private void prefetchNeighbours(String outerPath) {
+        if (prefetchCount <= 0) {
+            return;
+        }
+        String packagePrefix = outerPath.substring(0, outerPath.lastIndexOf('/') + 1);
+        List<String> neighbours = new ArrayList<>();
+        for (String candidate : groups.tailMap(outerPath, false).keySet()) {
+            if (neighbours.size() >= prefetchCount || !candidate.startsWith(packagePrefix)) {
+                break;
+            }
+            if (candidate.indexOf('/', packagePrefix.length()) < 0 && !cache.containsKey(candidate)
+                    && !inFlight.containsKey(candidate)) {
+                neighbours.add(candidate);
+            }
+        }
+        if (!neighbours.isEmpty()) {
+            prefetcher.execute(() -> decompileAsync(neighbours));
+        }
+    }
+
+    // 已在反编译中的类复用同一个结果，其余的在当前线程中一起反编译
+    private Map<String, CompletableFuture<String>> decompileAsync(List<String> outerPaths) {
+        Map<String, CompletableFuture<String>> results = new HashMap<>();
+        List<String> owned = new ArrayList<>();
+        for (String outerPath : outerPaths) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            CompletableFuture<String> existing = inFlight.putIfAbsent(outerPath, future);
+            results.put(outerPath, existing != null ? existing : future);
+            if (existing == null) {
+                owned.add(outerPath);
+            }
+        }
+        if (owned.isEmpty()) {
+            return results;
+        }
+        try {
+            List<String> classPaths = new ArrayList<>();
+            for (String outerPath : owned) {
+                classPaths.addAll(groups.get(outerPath));
+            }
+            Map<String, String> sources = new HashMap<>();
+            engine.decompile(source, classPaths, collectingSink(sources));
+            for (String outerPath : owned) {
+                String java = sources.get(outerPath);
+                if (java != null) {
+                    cache.put(outerPath, java);
+                    results.get(outerPath).complete(java);
+                } else {
+                    results.get(outerPath).completeExceptionally(
+                            new IllegalStateException("No output for " + outerPath.replace('/', '.')));
+                }
+            }
+        } catch (RuntimeException e) {
+            for (String outerPath : owned) {
+                results.get(outerPath).completeExceptionally(e);
+            }
+        } finally {
+            for (String outerPath : owned) {
+                inFlight.remove(outerPath);
+            }
+        }
+        return results;
+    }
+
+    private static String join(CompletableFuture<String> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while decompiling", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new RuntimeException(e.getCause());
+        }
+    }
+
+    // 按外部类路径收集 CFR 的输出
+    private static OutputSinkFactory collectingSink(Map<String, String> sources) {
+        return new OutputSinkFactory() {
+            @Override
+            public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> collection) {
+                if (sinkType == SinkType.JAVA && collection.contains(SinkClass.DECOMPILED)) {
+                    return Collections.singletonList(SinkClass.DECOMPILED);
+                }
+                return Collections.singletonList(SinkClass.STRING);
+            }
+
+            @Override
+            public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+                return t -> {
+                    if (sinkType == SinkType.JAVA && t instanceof SinkReturns.Decompiled) {
+                        SinkReturns.Decompiled decompiled = (SinkReturns.Decompiled) t;
+                        String outerPath = decompiled.getPackageName().isEmpty() ? decompiled.getClassName()
+                                : decompiled.getPackageName().replace('.', '/') + "/" + decompiled.getClassName();
+                        synchronized (sources) {
+                            sources.put(outerPath, decompiled.getJava());
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    private static String queryParameter(String rawQuery, String name) throws UnsupportedEncodingException {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    // 按源码占用的字节数（UTF-16，每字符 2 字节）限制大小的 LRU 缓存
+    public static class SourceCache {
+        private final long maxBytes;
+        private final LinkedHashMap<String, String> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long bytes;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        SourceCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public synchronized String get(String key) {
+            String value = entries.get(key);
+            if (value != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return value;
+        }
+
+        // 只判断是否已缓存：不计入命中/未命中，也不改变访问顺序
+        public synchronized boolean containsKey(String key) {
+            return entries.containsKey(key);
+        }
+
+        public synchronized void put(String key, String value) {
+            String previous = entries.put(key, value);
+            if (previous != null) {
+                bytes -= sizeOf(previous);
+            }
+            bytes += sizeOf(value);
+            Iterator<Map.Entry<String, String>> iterator = entries.entrySet().iterator();
+            // 至少保留刚放入的这一项
+            while (bytes > maxBytes && entries.size() > 1 && iterator.hasNext()) {
+                Map.Entry<String, String> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                bytes -= sizeOf(eldest.getValue());
+                iterator.remove();
+                evictions++;
+            }
+        }
+
+        public synchronized int size() {
+            return entries.size();
+        }
+
+        public synchronized long getBytes() {
+            return bytes;
+        }
+
+        public synchronized long getHits() {
+            return hits;
+        }
+
+        public synchronized long getMisses() {
+            return misses;
+        }
+
+        public synchronized long getEvictions() {
+            return evictions;
+        }
+
+        private static long sizeOf(String value) {
+            return 2L * value.length();
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "entries=" + entries.size() + ", bytes=" + bytes + ", maxBytes=" + maxBytes + ", hits=" + hits
+                    + ", misses=" + misses + ", evictions=" + evictions;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example;
+
+import org.benf.cfr.reader.api.ClassFileSource;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+
+import java.util.*;
+
+// 反编译后端：把一组类反编译为源码。classPaths 为 JarClassFileSource.toClassPath 形式，内部类与外部类在同一组，
+// 每个外部类通过 DecompileEngine.writeJava 向 outputSinkFactory 输出一次；没有输出的外部类由 DecompileEngine 交给另一个后端。
+// source 由 DecompileEngine 包装，已经读出的类字节不会再解压，读取字节数也在那里统计，后端不必重复统计。
+// 实现必须是线程安全的，并行模式下多个批次同时调用
+public interface DecompilerBackend {
+
+    String getName();
+
+    void decompile(ClassFileSource source, List<String> classPaths, OutputSinkFactory outputSinkFactory);
+
+    // 按外部类路径给出包名、类名的源码。degraded 表示不是按默认选项完整反编译的结果（简化选项重试、签名存根），不写入缓存
+    class Source implements SinkReturns.Decompiled {
+        private final String outerPath;
+        private final String java;
+        private final boolean degraded;
+
+        public Source(String outerPath, String java, boolean degraded) {
+            this.outerPath = outerPath;
+            this.java = java;
+            this.degraded = degraded;
+        }
+
+        public boolean isDegraded() {
+            return degraded;
+        }
+
+        @Override
+        public String getPackageName() {
+            int slash = outerPath.lastIndexOf('/');
+            return slash < 0 ? "" : outerPath.substring(0, slash).replace('/', '.');
+        }
+
+        @Override
+        public String getClassName() {
+            return outerPath.substring(outerPath.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getJava() {
+            return java;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 包名 -> Maven 坐标 的解析器。
+// 索引文件每行一条 包名前缀=groupId:artifactId[:version]，# 开头为注释；
+// 按包名前缀的字节序排好序的文件加载时只扫描一遍记录行偏移，查询时在内存映射的缓冲区上直接二分，
+// 未排序的文件在加载时排序一次。查询按包名逐级截短做最长前缀匹配（只在 . 处截断），
+// 每个包名只解析一次，结果缓存，因此索引变大时解析开销只随 log(索引大小) 增长
+public class DependencyResolver {
+
+    public static final String BUNDLED_INDEX = "dependency-index.txt";
+
+    private static volatile DependencyResolver defaultResolver;
+
+    // 按优先级排列，靠前的索引覆盖靠后的
+    private final List<PackageIndex> indexes;
+    private final ConcurrentHashMap<String, Optional<Artifact>> resolved = new ConcurrentHashMap<>();
+
+    public DependencyResolver(List<PackageIndex> indexes) {
+        this.indexes = new ArrayList<>(indexes);
+    }
+
+    // 进程内共享的解析器，第一次使用时按 application.properties 加载
+    public static DependencyResolver getDefault() {
+        DependencyResolver resolver = defaultResolver;
+        if (resolver == null) {
+            synchronized (DependencyResolver.class) {
+                resolver = defaultResolver;
+                if (resolver == null) {
+                    resolver = fromConfig(AppConfig.load());
+                    defaultResolver = resolver;
+                }
+            }
+        }
+        return resolver;
+    }
+
+    // dependency.index 指定的用户索引优先于内置索引
+    public static DependencyResolver fromConfig(AppConfig config) {
+        List<PackageIndex> indexes = new ArrayList<>();
+        String userIndex = config.get("dependency.index", null);
+        try {
+            if (userIndex != null) {
+                indexes.add(PackageIndex.open(Paths.get(userIndex)));
+            }
+            indexes.add(PackageIndex.bundled());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load dependency index " + (userIndex != null ? userIndex : BUNDLED_INDEX), e);
+        }
+        return new DependencyResolver(indexes);
+    }
+
+    // 返回包所属的构件，未知时返回 null
+    public Artifact resolve(String packageName) {
+        if (packageName == null || packageName.isEmpty()) {
+            return null;
+        }
+        Optional<Artifact> artifact = resolved.get(packageName);
+        if (artifact == null) {
+            artifact = Optional.ofNullable(lookup(packageName));
+            resolved.putIfAbsent(packageName, artifact);
+        }
+        return artifact.orElse(null);
+    }
+
+    public int size() {
+        int size = 0;
+        for (PackageIndex index : indexes) {
+            size += index.size();
+        }
+        return size;
+    }
+
+    private Artifact lookup(String packageName) {
+        String prefix = packageName;
+        while (true) {
+            for (PackageIndex index : indexes) {
+                Artifact artifact = index.get(prefix);
+                if (artifact != null) {
+                    return artifact;
+                }
+            }
+            int lastDot = prefix.lastIndexOf('.');
+            if (lastDot <= 0) {
+                return null;
+            }
+            prefix = prefix.substring(0, lastDot);
+        }
+    }
+
+    // 一个索引文件：原始字节 + 按键排序的行偏移
+    public static class PackageIndex {
+        private final String name;
+        private final ByteBuffer buffer;
+        private final int[] offsets;
+
+        private PackageIndex(String name, ByteBuffer buffer) {
+            this.name = name;
+            this.buffer = buffer;
+            this.offsets = scan();
+        }
+
+        public static PackageIndex open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Dependency index larger than 2GB is not supported: " + file);
+                }
+                return new PackageIndex(file.toString(), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        public static PackageIndex of(String name, byte[] content) {
+            return new PackageIndex(name, ByteBuffer.wrap(content));
+        }
+
+        // classpath 中的资源无法映射，读入内存
+        static PackageIndex bundled() throws IOException {
+            try (InputStream is = DependencyResolver.class.getClassLoader().getResourceAsStream(BUNDLED_INDEX)) {
+                if (is == null) {
+                    return of(BUNDLED_INDEX, new byte[0]);
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] chunk = new byte[8192];
+                int n;
+                while ((n = is.read(chunk)) != -1) {
+                    out.write(chunk, 0, n);
+                }
+                return of(BUNDLED_INDEX, out.toByteArray());
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int size() {
+            return offsets.length;
+        }
+
+        public Artifact get(String packagePrefix) {
+            byte[] key = packagePrefix.getBytes(StandardCharsets.UTF_8);
+            int low = 0;
+            int high = offsets.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareKey(offsets[mid], key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return parseValue(offsets[mid] + key.length + 1);
+                }
+            }
+            return null;
+        }
+
+        // 记录每条有效记录的起始偏移，顺带检查是否已按键排序
+        private int[] scan() {
+            int limit = buffer.limit();
+            int[] result = new int[Math.max(16, limit / 48)];
+            int count = 0;
+            boolean sorted = true;
+            int pos = 0;
+            while (pos < limit) {
+                int lineEnd = lineEnd(pos);
+                byte first = buffer.get(pos);
+                if (first != '#' && first != '\n' && first != '\r' && indexOf((byte) '=', pos, lineEnd) > pos) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    if (sorted && count > 0 && compareKeys(result[count - 1], pos) > 0) {
+                        sorted = false;
+                    }
+                    result[count++] = pos;
+                }
+                pos = lineEnd + 1;
+            }
+            result = Arrays.copyOf(result, count);
+            if (!sorted) {
+                Integer[] boxed = new Integer[count];
+                for (int i = 0; i < count; i++) {
+                    boxed[i] = result[i];
+                }
+                Arrays.sort(boxed, this::compareKeys);
+                for (int i = 0; i < count; i++) {
+                    result[i] = boxed[i];
+                }
+            }
+            return result;
+        }
+
+        private int lineEnd(int pos) {
+            int end = indexOf((byte) '\n', pos, buffer.limit());
+            return end < 0 ? buffer.limit() : end;
+        }
+
+        private int indexOf(byte b, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // 比较 offset 处记录的键与 key（键以 = 结束）
+        private int compareKey(int offset, byte[] key) {
+            for (int i = 0; ; i++) {
+                int b = buffer.get(offset + i) & 0xFF;
+                boolean keyEnd = b == '=';
+                if (i == key.length) {
+                    return keyEnd ? 0 : 1;
+                }
+                if (keyEnd) {
+                    return -1;
+                }
+                int cmp = b - (key[i] & 0xFF);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+        }
+
+        private int compareKeys(int a, int b) {
+            for (int i = 0; ; i++) {
+                int x = buffer.get(a + i) & 0xFF;
+                int y = buffer.get(b + i) & 0xFF;
+                if (x == '=' || y == '=') {
+                    return x == y ? 0 : x == '=' ? -1 : 1;
+                }
+                if (x != y) {
+                    return x - y;
+                }
+            }
+        }
+
+        private Artifact parseValue(int valueStart) {
+            int end = lineEnd(valueStart);
+            if (end > valueStart && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            byte[] bytes = new byte[end - valueStart];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(valueStart + i);
+            }
+            String[] parts = new String(bytes, StandardCharsets.UTF_8).trim().split(":");
+            if (parts.length < 2) {
+                System.err.println("Invalid dependency index entry in " + name + ": " + String.join(":", parts));
+                return null;
+            }
+            return new Artifact(parts[0], parts[1], parts.length > 2 ? parts[2] : null);
+        }
+    }
+
+    public static class Artifact {
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+
+        public Artifact(String groupId, String artifactId, String version) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getArtifactId() {
+            return artifactId;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Artifact)) {
+                return false;
+            }
+            Artifact other = (Artifact) o;
+            return groupId.equals(other.groupId) && artifactId.equals(other.artifactId)
+                    && Objects.equals(version, other.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, artifactId, version);
+        }
+
+        @Override
+        public String toString() {
+            return version == null ? groupId + ":" + artifactId : groupId + ":" + artifactId + ":" + version;
+        }
+    }
+}
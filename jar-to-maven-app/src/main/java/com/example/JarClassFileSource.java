@@ -0,0 +1,62 @@
+package com.example;
+
+import org.benf.cfr.reader.api.ClassFileSource;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+
+import java.io.IOException;
+import java.util.*;
+
+// 基于 ArchiveIndex 的 CFR 类文件来源
+// 类路径统一去掉 BOOT-INF/classes、WEB-INF/classes 前缀，这样被分析的类和作为依赖被引用的类
+// 在 CFR 的类缓存中是同一个键，每个类只读取一次
+public class JarClassFileSource implements ClassFileSource {
+
+    private static final String[] CLASS_ROOTS = {"BOOT-INF/classes/", "WEB-INF/classes/"};
+
+    private final ArchiveIndex index;
+    private final Map<String, ArchiveIndex.Entry> classEntries = new HashMap<>();
+
+    public JarClassFileSource(ArchiveIndex index) {
+        this.index = index;
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classEntries.putIfAbsent(toClassPath(entry.getName()), entry);
+            }
+        }
+    }
+
+    // 将 JAR 条目名转换为 CFR 使用的类路径，例如 BOOT-INF/classes/a/B.class -> a/B.class
+    public static String toClassPath(String entryName) {
+        for (String root : CLASS_ROOTS) {
+            if (entryName.startsWith(root)) {
+                return entryName.substring(root.length());
+            }
+        }
+        return entryName;
+    }
+
+    @Override
+    public void informAnalysisRelativePathDetail(String usePath, String classFilePath) {
+    }
+
+    @Override
+    public Collection<String> addJar(String jarPath) {
+        // 所有类已在构造时登记，无需再按 JAR 展开
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getPossiblyRenamedPath(String path) {
+        return path;
+    }
+
+    @Override
+    public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+        ArchiveIndex.Entry entry = classEntries.get(path);
+        if (entry == null) {
+            // 返回 null 让 CFR 回退到默认来源（JDK 类等）
+            return null;
+        }
+        return Pair.make(index.readBytes(entry), path);
+    }
+}
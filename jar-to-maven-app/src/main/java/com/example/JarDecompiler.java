@@ -1,32 +1,104 @@
 package com.example;
 
-import org.benf.cfr.reader.api.CfrDriver;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.*;
 
 public class JarDecompiler {
 
+    private static final String APP_MODULE = "app";
+    private static final String LIB_MODULES_DIR = "libs";
+    private static final String[] TYPE_KEYWORDS = {"class", "interface", "enum", "@interface", "record"};
+    private static final String[] MODIFIERS = {"public", "protected", "private", "abstract", "static", "final",
+            "strictfp", "sealed", "non-sealed"};
+
     private final String outputBaseDir;
-    private final String jarFilePath;
     private final Set<String> decompiledFiles;
+    private final DecompileEngine engine;
+    private final int parallelism;
+    private final boolean nestedJars;
+    private final List<String> excludes;
+    private final AppConfig config;
+    private final DecompileMetrics metrics;
+    // 按本实例的配置（dependency.index、m2.*）加载，不使用进程内共享的默认实例
+    private final DependencyResolver resolver;
+    // 未启用本地仓库索引时为 null
+    private final LocalRepositoryIndex localIndex;
+    // 未开启可达性裁剪时为 null
+    private final ReachabilityPruner pruner;
 
-    public JarDecompiler(String outputBaseDir, String jarFilePath) {
+    public JarDecompiler(String outputBaseDir) {
+        this(outputBaseDir, AppConfig.load());
+    }
+
+    public JarDecompiler(String outputBaseDir, AppConfig config) {
+        this(outputBaseDir, config, DecompileEngine.fromConfig(config), config.getParallelism());
+    }
+
+    public JarDecompiler(String outputBaseDir, AppConfig config, DecompileEngine engine, int parallelism) {
+        this(outputBaseDir, config, engine, parallelism, DependencyResolver.fromConfig(config),
+                LocalRepositoryIndex.fromConfig(config));
+    }
+
+    // 批量模式下多个实例共享同一个引擎（及其缓存和指标）、依赖解析器和本地仓库索引，parallelism 决定单个 JAR 内部切分的批数
+    public JarDecompiler(String outputBaseDir, AppConfig config, DecompileEngine engine, int parallelism,
+                         DependencyResolver resolver, LocalRepositoryIndex localIndex) {
         this.outputBaseDir = outputBaseDir;
-        this.jarFilePath = jarFilePath;
-        this.decompiledFiles = new HashSet<>();
+        this.config = config;
+        // 并行模式下 Sink 会被多个线程同时调用
+        this.decompiledFiles = ConcurrentHashMap.newKeySet();
+        this.engine = engine;
+        this.metrics = engine.getMetrics();
+        this.parallelism = parallelism;
+        this.nestedJars = config.getBoolean("decompile.nestedJars", false);
+        this.excludes = Arrays.asList(config.get("decompile.excludes", "META-INF,org/springframework/").split(","));
+        this.pruner = ReachabilityPruner.fromConfig(config);
+        this.resolver = resolver;
+        this.localIndex = localIndex;
+    }
+
+    // 要反编译的 JAR 由 decompileJar 的参数指定，这里的 jarFilePath 不再使用，仅为兼容保留
+    @Deprecated
+    public JarDecompiler(String outputBaseDir, String jarFilePath) {
+        this(outputBaseDir);
+    }
+
+    @Deprecated
+    public JarDecompiler(String outputBaseDir, String jarFilePath, AppConfig config) {
+        this(outputBaseDir, config);
     }
 
     public void decompileJar(String jarFilePath) {
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+        try {
+            decompileJar(jarFilePath, executor);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        if (engine.getCache() != null) {
+            System.out.println("Decompile cache: " + engine.getCache());
+        }
+        metrics.exportIfConfigured(config, new File(jarFilePath).getName().replace(".jar", ""));
+    }
+
+    // executor 由调用方提供和关闭，为 null 时顺序执行。
+    // 任务内部会向同一个 executor 提交子任务并等待，共享给多个 JAR 时应使用 ForkJoinPool，等待中的线程会帮助执行其他任务
+    public void decompileJar(String jarFilePath, ExecutorService executor) {
         File jarFile = new File(jarFilePath);
         if (!jarFile.exists() || !jarFile.getName().endsWith(".jar")) {
             throw new IllegalArgumentException("Invalid JAR file path: " + jarFilePath);
@@ -40,71 +112,190 @@ public class JarDecompiler {
                 FileUtils.deleteDirectory(outputDir.toFile());
             }
             Files.createDirectories(outputDir);
-            
-            // 创建Maven项目结构
-            createMavenProjectStructure(outputDir);
-            
-            // 提取和反编译JAR文件
-            decompileJarContent(jarFile, outputDir);
-            
-            // 解析JAR依赖并更新pom.xml
-            extractDependencies(outputDir);
-            
+
+            // 归档只扫描一次，之后所有阶段都从这个索引读取
+            ArchiveIndex index = ArchiveIndex.open(jarFile.toPath());
+
+            // 所有模块的源码都经由同一个写线程落盘（或写入 sources.zip）
+            Path mainModuleDir = nestedJars ? outputDir.resolve(APP_MODULE) : outputDir;
+            SourceWriter writer = SourceWriter.fromConfig(outputDir, config);
+            try {
+                if (nestedJars) {
+                    // 多模块：主程序放在 app 模块，每个内嵌 JAR 一个 libs/* 模块
+                    decompileModule(index, mainModuleDir, writer, executor);
+                    List<String> modules = new ArrayList<>();
+                    modules.add(APP_MODULE);
+                    modules.addAll(decompileNestedJars(index, outputDir, writer, executor));
+                    newMavenProjectGenerator().generateParentPom(outputDir, projectName, modules);
+                } else {
+                    decompileModule(index, outputDir, writer, executor);
+                }
+            } finally {
+                // 等写线程落盘完毕，写入的字节数才是最终值，编译验证也要在全部落盘之后
+                writer.close();
+            }
+            metrics.addBytesWritten(writer.getWrittenBytes());
+            if (!writer.isZip()) {
+                verifyModule(index, mainModuleDir, jarFile.toPath(), executor);
+            }
         } catch (IOException e) {
             throw new RuntimeException("Failed to decompile JAR: " + jarFilePath, e);
         }
     }
 
-    private void createMavenProjectStructure(Path outputDir) throws IOException {
-        // 创建标准Maven目录结构
-        Files.createDirectories(outputDir.resolve("src/main/java"));
-        Files.createDirectories(outputDir.resolve("src/main/resources"));
-        Files.createDirectories(outputDir.resolve("src/test/java"));
-        Files.createDirectories(outputDir.resolve("src/test/resources"));
-    }
-
-    private void decompileJarContent(File jarFile, Path outputDir) throws IOException {
-        Map<String, String> options = new HashMap<>();
-        options.put("showversion", "false");
-        options.put("decodestringswitch", "true");
-        options.put("sugarenums", "true");
-        options.put("decodelambdas", "true");
-        options.put("hidebridgemethods", "true");
-        
-        try (JarFile jar = new JarFile(jarFile)) {
-            // 创建源代码目录
-            Path srcDir = outputDir.resolve("src/main/java");
-            
-            // 设置CFR输出工厂
-            OutputSinkFactory outputSinkFactory = createOutputSinkFactory(srcDir);
-            
-            // 遍历JAR文件中的所有条目
-            Enumeration<JarEntry> entries = jar.entries();
-            while (entries.hasMoreElements()) {
-                JarEntry entry = entries.nextElement();
-
-                if (entry.getName().contains("META-INF")
-                        || entry.getName().contains("org/springframework/")){
-                    continue;
+    public int getDecompiledFileCount() {
+        return decompiledFiles.size();
+    }
+
+    public DecompileMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void decompileModule(ArchiveIndex index, Path outputDir, SourceWriter writer, ExecutorService executor) throws IOException {
+        // 创建Maven项目结构
+        createMavenProjectStructure(outputDir);
+
+        // 依赖分析的类扫描在线程池中与反编译同时进行，总耗时取两者中较长的一个。
+        // 顺序执行时等反编译完再创建，依赖索引和 maven-model 不会推迟第一个类的输出
+        MavenProjectGenerator mavenProjectGenerator = executor == null ? null : newMavenProjectGenerator();
+        MavenProjectGenerator.ClassScan scan = executor == null ? null
+                : mavenProjectGenerator.startClassScan(index, executor, parallelism * 2);
+
+        // 提取和反编译JAR文件
+        decompileJarContent(index, outputDir, writer, executor);
+
+        // 解析JAR依赖并更新pom.xml
+        if (mavenProjectGenerator == null) {
+            mavenProjectGenerator = newMavenProjectGenerator();
+        }
+        // 胖 JAR 中的内嵌 pom 同样在线程池中并行解析
+        mavenProjectGenerator.setExecutor(executor);
+        mavenProjectGenerator.generateProject(outputDir, index, scan);
+    }
+
+    // 编译校验（verify.enabled）：编译主模块的源码，不是由缺少依赖引起的编译失败的类，
+    // 换用 DecompileEngine.alternativeOptions 重新反编译，再只校验这些文件；仍然失败的类逐个报告
+    private void verifyModule(ArchiveIndex index, Path moduleDir, Path jarPath, ExecutorService executor) throws IOException {
+        CompileVerifier verifier = CompileVerifier.fromConfig(config, executor, parallelism, metrics, jarPath);
+        if (verifier == null) {
+            return;
+        }
+        verifier.setJavaLevel(compilerLevel(moduleDir.resolve("pom.xml")));
+        Path srcDir = moduleDir.resolve("src/main/java");
+        CompileVerifier.Result result = verifier.verify(srcDir);
+        System.out.println("Compile verification: " + result);
+
+        Set<Path> broken = result.getBrokenFiles();
+        if (!broken.isEmpty() && config.getBoolean("verify.redecompile", true)) {
+            Set<String> outerPaths = new HashSet<>();
+            for (Path file : broken) {
+                outerPaths.add(result.toClassPath(file));
+            }
+            List<String> classPaths = new ArrayList<>();
+            for (ArchiveIndex.Entry entry : index.entries()) {
+                String classPath = JarClassFileSource.toClassPath(entry.getName());
+                if (entry.getName().endsWith(".class") && outerPaths.contains(DecompileEngine.outerClassPath(classPath))) {
+                    classPaths.add(classPath);
                 }
+            }
+            SourceWriter rewriter = new SourceWriter(moduleDir, false, config.getInt("output.queueCapacity", 256));
+            try {
+                engine.withOptions(DecompileEngine.alternativeOptions(engine.getOptions()))
+                        .decompile(new JarClassFileSource(index), classPaths, createOutputSinkFactory(srcDir, rewriter));
+            } finally {
+                rewriter.close();
+            }
+            metrics.addBytesWritten(rewriter.getWrittenBytes());
+            result = verifier.verify(srcDir, broken);
+            System.out.println("Re-decompiled " + outerPaths.size() + " classes with alternative options: " + result);
+        }
+
+        Set<Path> stillBroken = result.getBrokenFiles();
+        for (Path file : result.getFailedFiles()) {
+            List<String> errors = result.getErrors(file);
+            boolean decompileError = stillBroken.contains(file);
+            System.err.println((decompileError ? "Does not compile: " : "Missing dependencies: ")
+                    + result.toClassPath(file).replace('/', '.') + " (" + errors.size() + " errors, first at line "
+                    + errors.get(0).split("\n", 2)[0] + ")");
+            if (decompileError) {
+                metrics.recordFailure(DecompileMetrics.FAILURE_COMPILE);
+            }
+        }
+    }
+
+    // 生成的 pom 中的编译级别：优先 maven.compiler.release，其次 maven.compiler.target；读不到时返回 null
+    static String compilerLevel(Path pomFile) {
+        try (Reader reader = Files.newBufferedReader(pomFile, StandardCharsets.UTF_8)) {
+            Properties properties = new MavenXpp3Reader().read(reader, false).getProperties();
+            String release = properties.getProperty("maven.compiler.release");
+            return release != null ? release : properties.getProperty("maven.compiler.target");
+        } catch (IOException | XmlPullParserException e) {
+            System.err.println("Failed to read compiler level from " + pomFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("try")
+    private void createMavenProjectStructure(Path outputDir) throws IOException {
+        try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_STRUCTURE)) {
+            // 创建标准Maven目录结构
+            Files.createDirectories(outputDir.resolve("src/main/java"));
+            Files.createDirectories(outputDir.resolve("src/main/resources"));
+            Files.createDirectories(outputDir.resolve("src/test/java"));
+            Files.createDirectories(outputDir.resolve("src/test/resources"));
+        }
+    }
+
+    @SuppressWarnings("try")
+    private void decompileJarContent(ArchiveIndex index, Path outputDir, SourceWriter writer, ExecutorService executor) throws IOException {
+        // 创建源代码目录
+        Path srcDir = outputDir.resolve("src/main/java");
+
+        // 设置CFR输出工厂
+        OutputSinkFactory outputSinkFactory = createOutputSinkFactory(srcDir, writer);
+
+        // 遍历JAR文件中的所有条目，收集待反编译的类；资源交给提取阶段，与反编译同时进行
+        ResourceExtractor resources = new ResourceExtractor(executor, metrics);
+        Path resourcesDir = outputDir.resolve("src/main/resources");
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (isExcluded(entry.getName())){
+                continue;
+            }
 
-                if (entry.getName().endsWith(".class")) {
-                    // 反编译类文件
-                    decompileClass(jar, entry, outputSinkFactory, options);
-                } else if (!entry.isDirectory() && !entry.getName().endsWith(".class")) {
-                    // 复制资源文件
-                    if (entry.getName().contains("BOOT-INF/classes")){
-                        copyResource(jar, entry, outputDir);
+            if (entry.getName().endsWith(".class")) {
+                classPaths.add(JarClassFileSource.toClassPath(entry.getName()));
+            } else if (!entry.isDirectory() && !entry.getName().endsWith(".class")) {
+                // 复制资源文件
+                if (entry.getName().contains("BOOT-INF/classes")){
+                    Path target = resolveResource(resourcesDir, entry.getName().replace("BOOT-INF/classes/", ""));
+                    if (target != null) {
+                        resources.extract(index, entry, target);
                     }
                 }
             }
         }
+
+        // 只保留从入口可达的类
+        if (pruner != null) {
+            try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_PRUNE)) {
+                classPaths = pruner.prune(index, classPaths, executor != null);
+            }
+        }
+
+        // 一次性反编译所有类，CFR 的类缓存在整个过程中共享
+        decompileClasses(index, classPaths, outputSinkFactory, executor);
+        resources.await();
     }
 
-    private OutputSinkFactory createOutputSinkFactory(Path srcDir) {
+    OutputSinkFactory createOutputSinkFactory(Path srcDir, SourceWriter writer) {
         return new OutputSinkFactory() {
             @Override
             public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> collection) {
+                // Java 源码优先要 DECOMPILED，包名和类名直接取自 CFR 的类信息，不再解析源码文本
+                if (sinkType == SinkType.JAVA && collection.contains(SinkClass.DECOMPILED)) {
+                    return Arrays.asList(SinkClass.DECOMPILED, SinkClass.STRING);
+                }
                 return Collections.singletonList(SinkClass.STRING);
             }
 
@@ -113,87 +304,252 @@ public class JarDecompiler {
                 return new Sink<T>() {
                     @Override
                     public void write(T t) {
-                        if (t instanceof String && sinkType == SinkType.JAVA) {
-                            String result = (String) t;
-                            try {
-                                // 获取包名和类名
-                                String packageName = extractPackageName(result);
-                                String className = extractClassName(result);
-                                
-                                // 创建包目录
-                                Path packageDir = srcDir;
-                                if (!packageName.isEmpty()) {
-                                    packageDir = srcDir.resolve(packageName.replace('.', '/'));
-                                    Files.createDirectories(packageDir);
-                                }
-                                
-                                // 写入反编译后的源代码
-                                Path outputFile = packageDir.resolve(className + ".java");
-                                Files.write(outputFile, Collections.singleton(result));
-                                decompiledFiles.add(outputFile.toString());
-                            } catch (IOException e) {
-                                throw new RuntimeException("Failed to write decompiled source", e);
+                        if (sinkType != SinkType.JAVA) {
+                            return;
+                        }
+                        String packageName;
+                        String className;
+                        String source;
+                        if (t instanceof SinkReturns.Decompiled) {
+                            SinkReturns.Decompiled decompiled = (SinkReturns.Decompiled) t;
+                            packageName = decompiled.getPackageName();
+                            className = decompiled.getClassName();
+                            source = decompiled.getJava();
+                        } else if (t instanceof String) {
+                            // 只有纯文本时才扫描源码得到类型名
+                            source = (String) t;
+                            String typeName = extractTypeName(source);
+                            if (typeName == null) {
+                                System.err.println("Cannot determine type name of decompiled source, skipped");
+                                return;
                             }
+                            int lastDot = typeName.lastIndexOf('.');
+                            packageName = lastDot < 0 ? "" : typeName.substring(0, lastDot);
+                            className = typeName.substring(lastDot + 1);
+                        } else {
+                            return;
                         }
+
+                        Path packageDir = srcDir;
+                        if (packageName != null && !packageName.isEmpty()) {
+                            packageDir = srcDir.resolve(packageName.replace('.', '/'));
+                        }
+
+                        // 交给写线程，包目录由写线程按需创建
+                        Path outputFile = packageDir.resolve(className + ".java");
+                        writer.write(outputFile, source);
+                        decompiledFiles.add(outputFile.toString());
                     }
                 };
             }
         };
     }
 
-    private void decompileClass(JarFile jar, JarEntry entry, OutputSinkFactory outputSinkFactory, Map<String, String> options) {
+    @SuppressWarnings("try")
+    private void decompileClasses(ArchiveIndex index, List<String> classPaths, OutputSinkFactory outputSinkFactory,
+                                  ExecutorService executor) {
+        try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_DECOMPILE)) {
+            engine.decompile(new JarClassFileSource(index), classPaths, outputSinkFactory, executor,
+                    executor == null ? 1 : parallelism);
+        } catch (Exception e) {
+            System.err.println("Failed to decompile: " + index.getName());
+            e.printStackTrace();
+            metrics.recordFailure(DecompileMetrics.FAILURE_JAR);
+        }
+    }
+
+    private boolean isExcluded(String entryName) {
+        for (String exclude : excludes) {
+            if (!exclude.trim().isEmpty() && entryName.contains(exclude.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 内嵌 JAR 以外层索引的切片建立索引（不落临时文件），每个 JAR 作为一个任务在线程池中反编译，
+    // 任务内部顺序执行，整体并发度由线程数而不是 JAR 数量决定
+    private List<String> decompileNestedJars(ArchiveIndex index, Path outputDir, SourceWriter writer,
+                                             ExecutorService executor) throws IOException {
+        List<String> modules = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (!isNestedJar(entry.getName())) {
+                continue;
+            }
+            String fileName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+            String module = LIB_MODULES_DIR + "/" + fileName.substring(0, fileName.length() - 4);
+            if (modules.contains(module)) {
+                continue;
+            }
+            modules.add(module);
+            Path moduleDir = outputDir.resolve(module);
+            Callable<Void> task = () -> {
+                decompileNestedJar(index.openNested(entry), moduleDir, writer);
+                return null;
+            };
+            if (executor != null) {
+                futures.add(executor.submit(task));
+            } else {
+                runNestedJarTask(task, entry);
+            }
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while decompiling nested jars", e);
+            } catch (ExecutionException e) {
+                System.err.println("Failed to decompile nested jar: " + modules.get(i));
+                e.getCause().printStackTrace();
+                metrics.recordFailure(DecompileMetrics.FAILURE_NESTED_JAR);
+            }
+        }
+        return modules;
+    }
+
+    private void runNestedJarTask(Callable<Void> task, ArchiveIndex.Entry entry) {
         try {
-            // 准备反编译选项
-            Map<String, String> cfg = new HashMap<>(options);
-            cfg.put("filename", entry.getName());
-            
-            // 创建CFR驱动并执行反编译
-            CfrDriver driver = new CfrDriver.Builder()
-                    .withOptions(cfg)
-                    .withOutputSink(outputSinkFactory)
-                    .build();
-            
-            driver.analyse(Collections.singletonList(jarFilePath));
+            task.call();
         } catch (Exception e) {
-            System.err.println("Failed to decompile: " + jar.getName());
+            System.err.println("Failed to decompile nested jar: " + entry.getName());
             e.printStackTrace();
+            metrics.recordFailure(DecompileMetrics.FAILURE_NESTED_JAR);
         }
     }
 
-    private void copyResource(JarFile jar, JarEntry entry, Path outputDir) throws IOException {
-        Path resourcePath = outputDir.resolve("src/main/resources")
-                .resolve(entry.getName().replace("BOOT-INF/classes/", ""));
-        Files.createDirectories(resourcePath.getParent());
-        
-        try (InputStream is = jar.getInputStream(entry)) {
-            Files.copy(is, resourcePath);
+    private boolean isNestedJar(String entryName) {
+        return entryName.endsWith(".jar")
+                && (entryName.startsWith("BOOT-INF/lib/") || entryName.startsWith("WEB-INF/lib/"));
+    }
+
+    @SuppressWarnings("try")
+    private void decompileNestedJar(ArchiveIndex nested, Path moduleDir, SourceWriter writer) throws IOException {
+        createMavenProjectStructure(moduleDir);
+        Path resourcesDir = moduleDir.resolve("src/main/resources");
+
+        // 内嵌 JAR 本身已在线程池中并行处理，资源在当前线程中提取
+        ResourceExtractor resources = new ResourceExtractor(null, metrics);
+        List<String> classPaths = new ArrayList<>();
+        byte[] embeddedPom = null;
+        for (ArchiveIndex.Entry entry : nested.entries()) {
+            String name = entry.getName();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            if (name.endsWith(".class")) {
+                if (!name.startsWith("META-INF/")) {
+                    classPaths.add(name);
+                }
+            } else if (PomReconstructor.isPomFile(name)) {
+                embeddedPom = nested.readBytes(entry);
+            } else if (!name.startsWith("META-INF/")) {
+                Path target = resolveResource(resourcesDir, name);
+                if (target != null) {
+                    resources.extract(nested, entry, target);
+                }
+            }
+        }
+
+        OutputSinkFactory outputSinkFactory = createOutputSinkFactory(moduleDir.resolve("src/main/java"), writer);
+        try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_DECOMPILE)) {
+            engine.decompile(new JarClassFileSource(nested), classPaths, outputSinkFactory);
+        }
+
+        String artifactId = moduleDir.getFileName().toString();
+        newMavenProjectGenerator().generateModulePom(moduleDir, artifactId, embeddedPom,
+                MavenProjectGenerator.maxMajorVersion(nested));
+    }
+
+    // 条目名中的 ..、绝对路径会让资源写到 resourcesDir 之外（zip slip），这类条目跳过并返回 null
+    static Path resolveResource(Path resourcesDir, String entryName) {
+        Path root = resourcesDir.toAbsolutePath().normalize();
+        Path target;
+        try {
+            target = root.resolve(entryName).normalize();
+        } catch (InvalidPathException e) {
+            target = null;
+        }
+        if (target == null || !target.startsWith(root) || target.equals(root)) {
+            System.err.println("Skipping resource outside " + resourcesDir + ": " + entryName);
+            return null;
         }
+        return target;
     }
 
-    private String extractPackageName(String source) {
-        String[] lines = source.split("\n");
-        for (String line : lines) {
-            if (line.trim().startsWith("package ")) {
-                return line.trim().substring(8).replace(";", "").trim();
+    // 单次扫描源码得到 包名.类型名（无包名时只有类型名），按行用 indexOf 前进，不切分、不 trim。
+    // 跳过注释、import 和注解行，支持 class、interface、enum、@interface、record；找不到时返回 null
+    static String extractTypeName(String source) {
+        String packageName = "";
+        int length = source.length();
+        int pos = 0;
+        while (pos < length) {
+            int end = source.indexOf('\n', pos);
+            if (end < 0) {
+                end = length;
             }
+            int start = skipSpaces(source, pos, end);
+            if (source.startsWith("package ", start)) {
+                int semicolon = source.indexOf(';', start);
+                if (semicolon > 0 && semicolon < end) {
+                    packageName = source.substring(skipSpaces(source, start + 8, semicolon), semicolon).trim();
+                }
+            } else if (start < end && source.charAt(start) != '/' && source.charAt(start) != '*'
+                    && !source.startsWith("import ", start)) {
+                String typeName = declaredTypeName(source, start, end);
+                if (typeName != null) {
+                    return packageName.isEmpty() ? typeName : packageName + "." + typeName;
+                }
+            }
+            pos = end + 1;
         }
-        return "";
+        return null;
     }
 
-    private String extractClassName(String source) {
-        String[] lines = source.split("\n");
-        for (String line : lines) {
-            line = line.trim();
-            if (line.contains(" class ")) {
-                String[] parts = line.split(" class ");
-                return parts[1].split("[ {]")[0].trim();
+    // 跳过修饰符，遇到类型关键字时返回其后的标识符；行首是其他内容（如注解）时返回 null
+    private static String declaredTypeName(String source, int start, int end) {
+        int word = start;
+        while (word < end) {
+            int wordEnd = word;
+            while (wordEnd < end && source.charAt(wordEnd) != ' ' && source.charAt(wordEnd) != '\r') {
+                wordEnd++;
             }
+            if (isWord(source, word, wordEnd, TYPE_KEYWORDS)) {
+                int nameStart = skipSpaces(source, wordEnd, end);
+                int nameEnd = nameStart;
+                while (nameEnd < end && Character.isJavaIdentifierPart(source.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                return nameEnd > nameStart ? source.substring(nameStart, nameEnd) : null;
+            }
+            if (!isWord(source, word, wordEnd, MODIFIERS)) {
+                return null;
+            }
+            word = skipSpaces(source, wordEnd, end);
+        }
+        return null;
+    }
+
+    private static boolean isWord(String source, int start, int end, String[] words) {
+        for (String word : words) {
+            if (word.length() == end - start && source.startsWith(word, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int skipSpaces(String source, int pos, int end) {
+        while (pos < end && (source.charAt(pos) == ' ' || source.charAt(pos) == '\t')) {
+            pos++;
         }
-        return "Unknown";
+        return pos;
     }
 
-    private void extractDependencies(Path outputDir) {
-        MavenProjectGenerator mavenProjectGenerator = new MavenProjectGenerator();
-        mavenProjectGenerator.generateProject(outputDir,jarFilePath);
+    private MavenProjectGenerator newMavenProjectGenerator() {
+        MavenProjectGenerator generator = new MavenProjectGenerator(resolver, localIndex);
+        generator.setMetrics(metrics);
+        return generator;
     }
 }
\ No newline at end of file
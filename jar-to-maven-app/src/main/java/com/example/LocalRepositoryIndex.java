@@ -0,0 +1,346 @@
+package com.example;
+
+import org.apache.maven.artifact.versioning.ComparableVersion;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// 本地 Maven 仓库（~/.m2/repository）的离线索引：JAR 的 SHA-1、文件名和包名 -> GAV 坐标。
+// 第一次运行扫描整个仓库，结果保存到磁盘；之后只重新索引 修改时间/大小 变化了的 JAR，删除的 JAR 从索引中移除。
+// 查询都是 HashMap 查找，与仓库中的 JAR 数量无关
+public class LocalRepositoryIndex {
+
+    private static final int MAGIC = 0x4A324D49;
+    private static final int FORMAT_VERSION = 1;
+
+    private static volatile Optional<LocalRepositoryIndex> defaultIndex;
+
+    private final Path repository;
+    private final Path indexFile;
+    // 仓库内相对路径 -> 记录
+    private final Map<String, JarRecord> records = new ConcurrentHashMap<>();
+    private final Map<String, DependencyResolver.Artifact> bySha1 = new HashMap<>();
+    private final Map<String, DependencyResolver.Artifact> byFileName = new HashMap<>();
+    private final Map<String, DependencyResolver.Artifact> byPackage = new HashMap<>();
+    private int lastIndexedJars;
+    private int lastRemovedJars;
+
+    public LocalRepositoryIndex(Path repository, Path indexFile) {
+        this.repository = repository;
+        this.indexFile = indexFile;
+    }
+
+    // m2.index.enabled 为 false 时返回 null；第一次调用时加载并增量更新
+    public static LocalRepositoryIndex getDefault() {
+        Optional<LocalRepositoryIndex> index = defaultIndex;
+        if (index == null) {
+            synchronized (LocalRepositoryIndex.class) {
+                index = defaultIndex;
+                if (index == null) {
+                    index = Optional.ofNullable(fromConfig(AppConfig.load()));
+                    defaultIndex = index;
+                }
+            }
+        }
+        return index.orElse(null);
+    }
+
+    public static LocalRepositoryIndex fromConfig(AppConfig config) {
+        if (!config.getBoolean("m2.index.enabled", false)) {
+            return null;
+        }
+        Path home = Paths.get(System.getProperty("user.home"));
+        Path repository = Paths.get(config.get("m2.repository", home.resolve(".m2").resolve("repository").toString()));
+        Path indexFile = Paths.get(config.get("m2.index.file", home.resolve(".jar-to-maven").resolve("m2-index.bin").toString()));
+        try {
+            return open(repository, indexFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to index local repository: " + repository, e);
+        }
+    }
+
+    // 读取已保存的索引，按仓库现状增量更新，有变化时写回
+    public static LocalRepositoryIndex open(Path repository, Path indexFile) throws IOException {
+        LocalRepositoryIndex index = new LocalRepositoryIndex(repository, indexFile);
+        index.load();
+        if (index.refresh()) {
+            index.save();
+        }
+        return index;
+    }
+
+    public DependencyResolver.Artifact findBySha1(String sha1) {
+        return sha1 == null ? null : bySha1.get(sha1.toLowerCase(Locale.ROOT));
+    }
+
+    // artifactId-version.jar 形式的文件名，如 MANIFEST 的 Class-Path 条目；多个 groupId 下有同名 JAR 时返回 null
+    public DependencyResolver.Artifact findByFileName(String fileName) {
+        return byFileName.get(fileName.substring(fileName.lastIndexOf('/') + 1));
+    }
+
+    // 同一个构件的多个版本都包含该包时返回最高版本；包出现在多个不同构件中时返回 null
+    public DependencyResolver.Artifact findByPackage(String packageName) {
+        return byPackage.get(packageName);
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    // 最近一次 refresh 重新索引和移除的 JAR 数
+    public int getLastIndexedJars() {
+        return lastIndexedJars;
+    }
+
+    public int getLastRemovedJars() {
+        return lastRemovedJars;
+    }
+
+    public static String sha1(ByteBuffer data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(data.duplicate());
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(40);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // 扫描仓库：未变化的 JAR 沿用原记录，新增或变化的 JAR 并行索引；返回索引是否有变化
+    boolean refresh() throws IOException {
+        Map<String, Path> jars = new HashMap<>();
+        Map<String, BasicFileAttributes> attributes = new HashMap<>();
+        if (Files.isDirectory(repository)) {
+            Files.walkFileTree(repository, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (file.getFileName().toString().endsWith(".jar") && isMainArtifact(file)) {
+                        String relative = repository.relativize(file).toString().replace('\\', '/');
+                        jars.put(relative, file);
+                        attributes.put(relative, attrs);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        int removed = 0;
+        for (Iterator<String> it = records.keySet().iterator(); it.hasNext(); ) {
+            if (!jars.containsKey(it.next())) {
+                it.remove();
+                removed++;
+            }
+        }
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, BasicFileAttributes> entry : attributes.entrySet()) {
+            JarRecord record = records.get(entry.getKey());
+            BasicFileAttributes attrs = entry.getValue();
+            if (record == null || record.lastModified != attrs.lastModifiedTime().toMillis() || record.size != attrs.size()) {
+                changed.add(entry.getKey());
+            }
+        }
+        AtomicInteger indexed = new AtomicInteger();
+        changed.parallelStream().forEach(relative -> {
+            JarRecord record = indexJar(relative, jars.get(relative), attributes.get(relative));
+            if (record != null) {
+                records.put(relative, record);
+                indexed.incrementAndGet();
+            } else {
+                records.remove(relative);
+            }
+        });
+        lastIndexedJars = indexed.get();
+        lastRemovedJars = removed;
+        rebuildLookups();
+        return !changed.isEmpty() || removed > 0;
+    }
+
+    // 仓库布局 group/path/artifactId/version/artifactId-version.jar，带 classifier 的 JAR（sources、tests 等）不计入
+    private boolean isMainArtifact(Path file) {
+        Path versionDir = file.getParent();
+        Path artifactDir = versionDir == null ? null : versionDir.getParent();
+        if (artifactDir == null || artifactDir.getParent() == null || artifactDir.getParent().equals(repository)) {
+            return false;
+        }
+        String expected = artifactDir.getFileName() + "-" + versionDir.getFileName() + ".jar";
+        return file.getFileName().toString().equals(expected);
+    }
+
+    private JarRecord indexJar(String relative, Path file, BasicFileAttributes attrs) {
+        Path versionDir = file.getParent();
+        Path artifactDir = versionDir.getParent();
+        String groupId = repository.relativize(artifactDir.getParent()).toString().replace('\\', '/').replace('/', '.');
+        DependencyResolver.Artifact artifact = new DependencyResolver.Artifact(groupId,
+                artifactDir.getFileName().toString(), versionDir.getFileName().toString());
+        // 只需要条目名和 SHA-1：用 ZipFile 读中央目录、流式计算摘要，读完即关闭。
+        // 不用 ArchiveIndex 或 FileChannel.map，映射要等 GC 才释放，扫描整个仓库时会一直占着
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            Set<String> packages = new TreeSet<>();
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+                String name = entries.nextElement().getName();
+                int slash = name.lastIndexOf('/');
+                if (name.endsWith(".class") && slash > 0 && !name.startsWith("META-INF/")) {
+                    packages.add(name.substring(0, slash).replace('/', '.'));
+                }
+            }
+            return new JarRecord(relative, attrs.lastModifiedTime().toMillis(), attrs.size(), readSha1(file),
+                    artifact, packages.toArray(new String[0]));
+        } catch (IOException e) {
+            System.err.println("Failed to index " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 优先使用仓库中的 .sha1 校验文件，没有时自己计算
+    private static String readSha1(Path jar) throws IOException {
+        Path sidecar = jar.resolveSibling(jar.getFileName() + ".sha1");
+        if (Files.isRegularFile(sidecar)) {
+            String content = new String(Files.readAllBytes(sidecar), StandardCharsets.US_ASCII).trim();
+            int space = content.indexOf(' ');
+            String sha1 = (space > 0 ? content.substring(0, space) : content).toLowerCase(Locale.ROOT);
+            if (sha1.length() == 40) {
+                return sha1;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void rebuildLookups() {
+        bySha1.clear();
+        byFileName.clear();
+        byPackage.clear();
+        // 包名 -> groupId:artifactId -> 该构件中包含这个包的最高版本
+        Map<String, Map<String, DependencyResolver.Artifact>> claims = new HashMap<>();
+        // 不同构件的同名 JAR（如不同 groupId 下的 core-1.0.jar）无法确定来源，不参与按文件名查找
+        Set<String> ambiguousFileNames = new HashSet<>();
+        for (JarRecord record : records.values()) {
+            bySha1.put(record.sha1, record.artifact);
+            String fileName = record.path.substring(record.path.lastIndexOf('/') + 1);
+            DependencyResolver.Artifact existingFile = byFileName.putIfAbsent(fileName, record.artifact);
+            if (existingFile != null && !existingFile.equals(record.artifact)) {
+                ambiguousFileNames.add(fileName);
+            }
+            String key = record.artifact.getGroupId() + ":" + record.artifact.getArtifactId();
+            ComparableVersion version = new ComparableVersion(record.artifact.getVersion());
+            for (String packageName : record.packages) {
+                Map<String, DependencyResolver.Artifact> artifacts = claims.computeIfAbsent(packageName, k -> new HashMap<>());
+                DependencyResolver.Artifact existing = artifacts.get(key);
+                if (existing == null || version.compareTo(new ComparableVersion(existing.getVersion())) > 0) {
+                    artifacts.put(key, record.artifact);
+                }
+            }
+        }
+        byFileName.keySet().removeAll(ambiguousFileNames);
+        // 多个不同构件都包含的包（重打包、拆分包等）无法确定来源，不参与按包名查找
+        for (Map.Entry<String, Map<String, DependencyResolver.Artifact>> entry : claims.entrySet()) {
+            if (entry.getValue().size() == 1) {
+                byPackage.put(entry.getKey(), entry.getValue().values().iterator().next());
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                // 格式不兼容时整体重建
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long lastModified = in.readLong();
+                long size = in.readLong();
+                String sha1 = in.readUTF();
+                DependencyResolver.Artifact artifact = new DependencyResolver.Artifact(in.readUTF(), in.readUTF(), in.readUTF());
+                String[] packages = new String[in.readInt()];
+                for (int j = 0; j < packages.length; j++) {
+                    packages[j] = in.readUTF();
+                }
+                records.put(path, new JarRecord(path, lastModified, size, sha1, artifact, packages));
+            }
+        } catch (EOFException e) {
+            System.err.println("Local repository index is truncated, rebuilding: " + indexFile);
+            records.clear();
+        }
+    }
+
+    void save() throws IOException {
+        Files.createDirectories(indexFile.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(indexFile.toAbsolutePath().getParent(), indexFile.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(records.size());
+            for (JarRecord record : records.values()) {
+                out.writeUTF(record.path);
+                out.writeLong(record.lastModified);
+                out.writeLong(record.size);
+                out.writeUTF(record.sha1);
+                out.writeUTF(record.artifact.getGroupId());
+                out.writeUTF(record.artifact.getArtifactId());
+                out.writeUTF(record.artifact.getVersion());
+                out.writeInt(record.packages.length);
+                for (String packageName : record.packages) {
+                    out.writeUTF(packageName);
+                }
+            }
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static class JarRecord {
+        final String path;
+        final long lastModified;
+        final long size;
+        final String sha1;
+        final DependencyResolver.Artifact artifact;
+        final String[] packages;
+
+        JarRecord(String path, long lastModified, long size, String sha1, DependencyResolver.Artifact artifact, String[] packages) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.sha1 = sha1;
+            this.artifact = artifact;
+            this.packages = packages;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 命令行入口（可运行 JAR 的 Main-Class）：
+//   decompile <JAR> [输出目录]                  反编译为 Maven 项目，输出目录默认为当前目录
+//   batch <输出目录> <JAR 或目录>...            批量反编译，见 BatchDecompiler
+//   serve <JAR> [端口]                          按需反编译服务，见 DecompileServer
+//   cds <归档文件> <样例 JAR>                   用样例 JAR 跑一遍 decompile，生成 CDS 归档
+// 这个类只引用 JDK 和本项目中的轻量类，各子命令用到的 CFR、maven-model 等在进入子命令后才加载。
+// 使用 CDS 归档启动：java -XX:SharedArchiveFile=<归档文件> -jar jar-to-maven-app-cli.jar decompile ...
+public class Main {
+
+    private static final String USAGE = "Usage:\n"
+            + "  decompile <jar> [outputDir]\n"
+            + "  batch <outputDir> <jar-or-directory>...\n"
+            + "  serve <jar> [port]\n"
+            + "  cds <archiveFile> <sampleJar>\n"
+            + "Start with -XX:SharedArchiveFile=<archiveFile> to use a CDS archive created by 'cds'.";
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        String[] rest = Arrays.copyOfRange(args, 1, args.length);
+        try {
+            switch (args[0]) {
+                case "decompile":
+                    System.exit(decompile(rest));
+                    break;
+                case "batch":
+                    BatchDecompiler.main(rest);
+                    break;
+                case "serve":
+                    DecompileServer.main(rest);
+                    break;
+                case "cds":
+                    System.exit(createCdsArchive(rest));
+                    break;
+                default:
+                    System.err.println("Unknown command: " + args[0]);
+                    System.err.println(USAGE);
+                    System.exit(2);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println(args[0] + " failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    static int decompile(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: decompile <jar> [outputDir]");
+            return 2;
+        }
+        String outputDir = args.length > 1 ? args[1] : ".";
+        long start = System.nanoTime();
+        JarDecompiler decompiler = new JarDecompiler(outputDir, AppConfig.load());
+        decompiler.decompileJar(args[0]);
+        System.out.println("Decompiled " + decompiler.getDecompiledFileCount() + " source files from " + args[0] + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return 0;
+    }
+
+    // 以训练运行的方式生成 AppCDS 归档（JDK 13+ 的 -XX:ArchiveClassesAtExit）：
+    // 在子进程中用同一个可运行 JAR 反编译样例 JAR，退出时 JVM 把加载过的类写入归档。
+    // 归档只对同一个 JAR 路径和同一个 JDK 有效，升级任一方后需重新生成
+    static int createCdsArchive(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: cds <archiveFile> <sampleJar>");
+            return 2;
+        }
+        Path archive = Paths.get(args[0]).toAbsolutePath();
+        Path selfJar = selfJar();
+        Path workDir = Files.createTempDirectory("jar-to-maven-cds");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = Arrays.asList(java, "-XX:ArchiveClassesAtExit=" + archive, "-jar", selfJar.toString(),
+                "decompile", args[1], workDir.toString());
+        System.out.println("Training run: " + String.join(" ", command));
+        try {
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            int exitCode = process.waitFor();
+            if (exitCode != 0 || !Files.exists(archive)) {
+                System.err.println("Failed to create CDS archive " + archive + " (exit code " + exitCode
+                        + "); -XX:ArchiveClassesAtExit requires JDK 13 or later");
+                return exitCode != 0 ? exitCode : 1;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while creating CDS archive", e);
+        } finally {
+            deleteRecursively(workDir);
+        }
+        System.out.println("Created CDS archive " + archive + ", run with:");
+        System.out.println("  java -XX:SharedArchiveFile=" + archive + " -jar " + selfJar + " decompile <jar> [outputDir]");
+        return 0;
+    }
+
+    // CDS 要求类路径是 JAR 文件，从 target/classes 等目录运行时无法生成归档
+    private static Path selfJar() {
+        try {
+            File location = new File(Main.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (!location.isFile()) {
+                throw new IllegalStateException("CDS archives require running from the packaged jar, not " + location);
+            }
+            return location.toPath().toAbsolutePath();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Cannot locate the running jar", e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.collect(Collectors.toList());
+        }
+        Collections.reverse(paths);
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
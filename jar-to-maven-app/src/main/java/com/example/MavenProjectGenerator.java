@@ -1,17 +1,20 @@
 package com.example;
 
-import cn.hutool.core.bean.BeanUtil;
 import org.apache.maven.model.*;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.objectweb.asm.*;
-import org.objectweb.asm.Type;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.jar.Manifest;
 
 public class MavenProjectGenerator {
@@ -19,7 +22,51 @@ public class MavenProjectGenerator {
     private static final String DEFAULT_ARTIFACT_ID = "com.artifactId";
     private static final String DEFAULT_VERSION = "1.0-SNAPSHOT";
 
+    private final DependencyResolver resolver;
+    // 未启用本地仓库索引时为 null
+    private final LocalRepositoryIndex localIndex;
+    private DecompileMetrics metrics = new DecompileMetrics();
+    // 内嵌 pom 的并行解析使用的线程池，为 null 时顺序解析
+    private ExecutorService executor;
+
+    // 使用按 application.properties 加载的进程内共享解析器和本地仓库索引；有 AppConfig 时应传入按它构建的实例
+    public MavenProjectGenerator() {
+        this(DependencyResolver.getDefault(), LocalRepositoryIndex.getDefault());
+    }
+
+    public MavenProjectGenerator(DependencyResolver resolver) {
+        this(resolver, null);
+    }
+
+    public MavenProjectGenerator(DependencyResolver resolver, LocalRepositoryIndex localIndex) {
+        this.resolver = resolver;
+        this.localIndex = localIndex;
+    }
+
+    // 依赖分析、pom 写入的耗时和 pom 解析失败计入 metrics
+    public void setMetrics(DecompileMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
     public void generateProject(Path projectPath, String jarPath) {
+        try {
+            generateProject(projectPath, ArchiveIndex.open(new File(jarPath).toPath()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void generateProject(Path projectPath, ArchiveIndex index) {
+        generateProject(projectPath, index, null);
+    }
+
+    // scan 为 startClassScan 提前开始的类扫描，为 null 时在当前线程中扫描
+    @SuppressWarnings("try")
+    public void generateProject(Path projectPath, ArchiveIndex index, ClassScan scan) {
         try {
             // 创建并配置 Maven Model
             Model model = createBasicModel();
@@ -28,7 +75,12 @@ public class MavenProjectGenerator {
             addProjectProperties(model);
 
             // 分析并添加依赖
-            analyzeDependencies(model, jarPath);
+            try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_DEPENDENCIES)) {
+                analyzeDependencies(model, index, scan);
+            }
+
+            // 添加构建插件
+            addBuildPlugins(model);
 
             // 写入 pom.xml
             writePomXml(model, projectPath);
@@ -37,6 +89,55 @@ public class MavenProjectGenerator {
         }
     }
 
+    // 多模块模式下的聚合 pom，modules 为相对于 projectPath 的模块目录
+    public void generateParentPom(Path projectPath, String projectName, List<String> modules) {
+        try {
+            Model model = createBasicModel();
+            model.setArtifactId(projectName);
+            model.setPackaging("pom");
+            model.setModules(new ArrayList<>(modules));
+            writePomXml(model, projectPath);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // 内嵌 JAR 模块的 pom，优先沿用 JAR 中自带的 pom.xml 的坐标和依赖
+    public void generateModulePom(Path modulePath, String artifactId, byte[] embeddedPom) {
+        generateModulePom(modulePath, artifactId, embeddedPom, 0);
+    }
+
+    // majorVersion 为模块中类文件的最高主版本号，0 表示未知，沿用默认的 1.8
+    public void generateModulePom(Path modulePath, String artifactId, byte[] embeddedPom, int majorVersion) {
+        try {
+            Model model = createBasicModel();
+            model.setArtifactId(artifactId);
+            addProjectProperties(model);
+            setCompilerLevel(model, majorVersion);
+            if (embeddedPom != null) {
+                Model originalPom = readPom(new ByteArrayInputStream(embeddedPom));
+                if (originalPom != null) {
+                    String groupId = PomReconstructor.groupId(originalPom);
+                    String version = PomReconstructor.version(originalPom);
+                    if (groupId != null) {
+                        model.setGroupId(groupId);
+                    }
+                    if (originalPom.getArtifactId() != null) {
+                        model.setArtifactId(originalPom.getArtifactId());
+                    }
+                    if (version != null) {
+                        model.setVersion(version);
+                    }
+                    model.setDependencies(originalPom.getDependencies());
+                }
+            }
+            addBuildPlugins(model);
+            writePomXml(model, modulePath);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private Model createBasicModel() {
         Model model = new Model();
         model.setModelVersion("4.0.0");
@@ -55,202 +156,520 @@ public class MavenProjectGenerator {
         model.setProperties(properties);
     }
 
-    private void analyzeDependencies(Model model, String jarPath) throws IOException {
-        Set<Dependency> dependencies = new HashSet<>();
-        Map<String, Set<String>> importedClasses = new HashMap<>();
-        
-        try (JarFile jarFile = new JarFile(new File(jarPath))) {
-            // 1. 首先尝试从JAR包中的pom.xml获取依赖
-            boolean foundPom = false;
-            Enumeration<JarEntry> entries = jarFile.entries();
-            while (entries.hasMoreElements()) {
-                JarEntry entry = entries.nextElement();
-                if (isPomFile(entry.getName())) {
-                    foundPom = true;
-                    Model originalPom = readPomFromJar(jarFile, entry);
-                    if (originalPom != null) {
-                        BeanUtil.copyProperties(originalPom, model);
+    // 按类文件的最高主版本号设置编译级别：52 及以下为 1.8（当前 JDK 已不支持更低的级别），
+    // 53（Java 9）起为 主版本号 - 44，同时设置 maven.compiler.release；0 表示未知，不修改
+    static void setCompilerLevel(Model model, int majorVersion) {
+        if (majorVersion <= 0) {
+            return;
+        }
+        String level = javaLevel(majorVersion);
+        model.getProperties().setProperty("maven.compiler.source", level);
+        model.getProperties().setProperty("maven.compiler.target", level);
+        if (majorVersion >= 53) {
+            model.getProperties().setProperty("maven.compiler.release", level);
+        } else {
+            model.getProperties().remove("maven.compiler.release");
+        }
+    }
+
+    static String javaLevel(int majorVersion) {
+        return majorVersion <= 52 ? "1.8" : String.valueOf(majorVersion - 44);
+    }
+
+    // META-INF/versions/** 下多版本 JAR 的类需要各自的 release 设置，不参与编译级别的计算；两条计算路径都用这条规则
+    static boolean countsForCompilerLevel(String entryName) {
+        return !entryName.startsWith("META-INF/");
+    }
+
+    // 只读每个类文件的前 8 个字节（魔数、次版本号、主版本号），取最高的主版本号；没有类时返回 0
+    static int maxMajorVersion(ArchiveIndex index) throws IOException {
+        int max = 0;
+        byte[] header = new byte[8];
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (!entry.getName().endsWith(".class") || !countsForCompilerLevel(entry.getName())) {
+                continue;
+            }
+            if (index.readPrefix(entry, header) == header.length && (header[0] & 0xFF) == 0xCA
+                    && (header[1] & 0xFF) == 0xFE) {
+                max = Math.max(max, ((header[6] & 0xFF) << 8) | (header[7] & 0xFF));
+            }
+        }
+        return max;
+    }
+
+    // 在 executor 中分块并行扫描全部类文件，调用方可以同时进行反编译，之后把结果交给 generateProject。
+    // JAR 中带有 pom.xml（依赖直接取自 pom，不需要扫描）时返回 null
+    @SuppressWarnings("try")
+    public ClassScan startClassScan(ArchiveIndex index, ExecutorService executor, int chunkCount) {
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (PomReconstructor.isPomFile(entry.getName())) {
+                return null;
+            }
+        }
+        List<ArchiveIndex.Entry> classes = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classes.add(entry);
+            }
+        }
+        ReferencedPackages referenced = new ReferencedPackages();
+        List<Future<?>> futures = new ArrayList<>();
+        int chunkSize = Math.max(1, (classes.size() + chunkCount - 1) / Math.max(1, chunkCount));
+        for (int start = 0; start < classes.size(); start += chunkSize) {
+            List<ArchiveIndex.Entry> chunk = classes.subList(start, Math.min(classes.size(), start + chunkSize));
+            futures.add(executor.submit(() -> {
+                try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_CLASS_SCAN)) {
+                    for (ArchiveIndex.Entry entry : chunk) {
+                        analyzeClassFile(index, entry, referenced);
                     }
-                    break;
                 }
-            }
-            
-            // 2. 如果没有找到pom.xml，则尝试其他方法
-            if (!foundPom) {
-                // 从 MANIFEST.MF 提取依赖信息
-                Manifest manifest = jarFile.getManifest();
-                if (manifest != null) {
-                    String classpath = manifest.getMainAttributes().getValue("Class-Path");
-                    if (classpath != null) {
-                        for (String dependency : classpath.split(" ")) {
-                            if (dependency.endsWith(".jar")) {
-                                addDependencyFromFilename(dependencies, dependency);
-                            }
+                return null;
+            }));
+        }
+        return new ClassScan(referenced, futures);
+    }
+
+    void analyzeDependencies(Model model, ArchiveIndex index) throws IOException {
+        analyzeDependencies(model, index, null);
+    }
+
+    @SuppressWarnings("try")
+    void analyzeDependencies(Model model, ArchiveIndex index, ClassScan scan) throws IOException {
+        // 按 groupId:artifactId:type[:classifier] 去重，先添加的优先
+        Map<String, Dependency> dependencies = new LinkedHashMap<>();
+
+        // 1. 首先尝试从JAR包中的pom.xml重建，全部内嵌 pom 合并为一个
+        boolean foundPom = new PomReconstructor(executor, metrics).reconstruct(index, model);
+        if (foundPom) {
+            // 没有类扫描，单独读一遍类文件头确定编译级别
+            setCompilerLevel(model, maxMajorVersion(index));
+        }
+
+        // 2. 如果没有可用的pom.xml，则尝试其他方法
+        if (!foundPom) {
+            // 从 MANIFEST.MF 提取依赖信息
+            Manifest manifest = index.getManifest();
+            if (manifest != null) {
+                String classpath = manifest.getMainAttributes().getValue("Class-Path");
+                if (classpath != null) {
+                    for (String dependency : classpath.split(" ")) {
+                        if (dependency.endsWith(".jar")) {
+                            addDependencyFromFilename(dependencies, dependency);
                         }
                     }
                 }
+            }
+
+            // 内嵌的依赖 JAR 按 SHA-1 在本地仓库索引中精确匹配
+            addNestedJarDependencies(dependencies, index);
 
-                // 分析所有类文件中的依赖
-                entries = jarFile.entries();
-                while (entries.hasMoreElements()) {
-                    JarEntry entry = entries.nextElement();
-                    if (entry.getName().endsWith(".class")) {
-                        analyzeClassFile(jarFile, entry, importedClasses);
+            // 分析所有类文件中的依赖，引用的包随扫描汇总
+            ReferencedPackages referenced;
+            if (scan != null) {
+                referenced = scan.get();
+            } else {
+                referenced = new ReferencedPackages();
+                try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_CLASS_SCAN)) {
+                    for (ArchiveIndex.Entry entry : index.entries()) {
+                        if (entry.getName().endsWith(".class")) {
+                            analyzeClassFile(index, entry, referenced);
+                        }
                     }
                 }
+            }
 
-                // 根据分析到的类推断依赖
-                inferDependenciesFromImports(dependencies, importedClasses);
+            // 根据引用到的包推断依赖
+            inferDependenciesFromPackages(dependencies, referenced.getPackages(), ownPackages(index));
 
-                // 添加一些常用的运行时依赖
-                addCommonDependencies(dependencies);
+            // 编译级别取自扫描中见到的最高类文件版本
+            setCompilerLevel(model, referenced.getMaxMajorVersion());
 
-                // 将收集到的依赖添加到模型中
-                model.setDependencies(new ArrayList<>(dependencies));
-            }
+            // 添加一些常用的运行时依赖
+            addCommonDependencies(dependencies);
+
+            // 将收集到的依赖添加到模型中
+            model.setDependencies(new ArrayList<>(dependencies.values()));
         }
     }
     
-    private void analyzeClassFile(JarFile jarFile, JarEntry entry, Map<String, Set<String>> importedClasses) throws IOException {
-        try (InputStream is = jarFile.getInputStream(entry)) {
-            ClassDependencyVisitor visitor = new ClassDependencyVisitor();
-            new org.objectweb.asm.ClassReader(is).accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
-            importedClasses.put(visitor.getClassName(), visitor.getImportedClasses());
-        }
+    private void analyzeClassFile(ArchiveIndex index, ArchiveIndex.Entry entry, ReferencedPackages referenced) throws IOException {
+        ClassDependencyVisitor visitor = new ClassDependencyVisitor(referenced, countsForCompilerLevel(entry.getName()));
+        new org.objectweb.asm.ClassReader(index.readBytes(entry)).accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
     }
     
-    private void inferDependenciesFromImports(Set<Dependency> dependencies, Map<String, Set<String>> importedClasses) {
-        // 常见的包名到依赖映射
-        Map<String, String[]> packageToDependency = new HashMap<>();
-        packageToDependency.put("org.springframework", new String[]{"org.springframework", "spring-core", "5.3.9"});
-        packageToDependency.put("javax.servlet", new String[]{"javax.servlet", "javax.servlet-api", "4.0.1"});
-        packageToDependency.put("org.hibernate", new String[]{"org.hibernate", "hibernate-core", "5.5.7.Final"});
-        packageToDependency.put("com.fasterxml.jackson", new String[]{"com.fasterxml.jackson.core", "jackson-core", "2.13.0"});
-        packageToDependency.put("org.apache.commons", new String[]{"org.apache.commons", "commons-lang3", "3.12.0"});
-        packageToDependency.put("org.slf4j", new String[]{"org.slf4j", "slf4j-api", "1.7.32"});
-        packageToDependency.put("ch.qos.logback", new String[]{"ch.qos.logback", "logback-classic", "1.2.6"});
-        
-        // 分析所有导入的类
-        for (Set<String> imports : importedClasses.values()) {
-            for (String importedClass : imports) {
-                // 获取包名
-                String packageName = getPackageName(importedClass);
-                if (packageName != null) {
-                    // 检查是否匹配任何已知的依赖
-                    for (Map.Entry<String, String[]> entry : packageToDependency.entrySet()) {
-                        if (packageName.startsWith(entry.getKey())) {
-                            String[] depInfo = entry.getValue();
-                            addKnownDependency(dependencies, depInfo[0], depInfo[1], depInfo[2]);
-                            break;
-                        }
-                    }
+    // JAR 自身的类所在的包（内部名形式 a/b），已去掉 BOOT-INF/classes、WEB-INF/classes 前缀
+    static Set<String> ownPackages(ArchiveIndex index) {
+        Set<String> packages = new HashSet<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            String name = entry.getName();
+            if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                String classPath = JarClassFileSource.toClassPath(name);
+                int slash = classPath.lastIndexOf('/');
+                if (slash > 0) {
+                    packages.add(classPath.substring(0, slash));
                 }
             }
         }
+        return packages;
     }
-    
-    private String getPackageName(String className) {
-        int lastDot = className.lastIndexOf('.');
-        return lastDot > 0 ? className.substring(0, lastDot) : null;
+
+    // packages 为内部名形式（a/b），每个包只查一次索引
+    private void inferDependenciesFromPackages(Map<String, Dependency> dependencies, Set<String> packages,
+                                               Set<String> ownPackages) {
+        // 多个包可能属于同一个构件，每个构件只添加一次
+        Set<DependencyResolver.Artifact> artifacts = new LinkedHashSet<>();
+        for (String internalPackage : packages) {
+            String packageName = internalPackage.replace('/', '.');
+            // 本地仓库中实际存在的构件版本优先于索引中的默认版本；
+            // JAR 自身的包不在本地仓库中查找，否则安装过的应用会把自己列为依赖
+            DependencyResolver.Artifact artifact = localIndex != null && !ownPackages.contains(internalPackage)
+                    ? localIndex.findByPackage(packageName) : null;
+            if (artifact == null) {
+                artifact = resolver.resolve(packageName);
+            }
+            if (artifact != null) {
+                artifacts.add(artifact);
+            }
+        }
+        for (DependencyResolver.Artifact artifact : artifacts) {
+            addKnownDependency(dependencies, artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion());
+        }
     }
     
-    private void addKnownDependency(Set<Dependency> dependencies, String groupId, String artifactId, String version) {
+    private void addKnownDependency(Map<String, Dependency> dependencies, String groupId, String artifactId, String version) {
         Dependency dependency = new Dependency();
         dependency.setGroupId(groupId);
         dependency.setArtifactId(artifactId);
         dependency.setVersion(version);
         dependency.setScope("compile");
-        dependencies.add(dependency);
+        addDependency(dependencies, dependency);
+    }
+
+    // Dependency 没有重写 equals/hashCode，按坐标去重
+    private static void addDependency(Map<String, Dependency> dependencies, Dependency dependency) {
+        dependencies.putIfAbsent(dependency.getManagementKey(), dependency);
     }
     
-    private static class ClassDependencyVisitor extends ClassVisitor {
-        private final Set<String> importedClasses = new HashSet<>();
-        private String className;
-        
-        public ClassDependencyVisitor() {
+    // 所有类引用到的包（内部名形式 a/b），边扫描边汇总，不保留每个类的引用集合。
+    // 类型内部名和描述符先经过固定大小、按哈希直接索引的去重表，最近出现过的引用只做一次比较，不再截取字符串；
+    // 冲突时直接覆盖，被覆盖的引用再次出现时重新处理一遍。表的大小固定，
+    // 保留下来的只有包名集合，内存与类的数量无关。线程安全：并发写同一个槽位最多造成一次重复处理
+    static class ReferencedPackages {
+        private static final int SEEN_SLOTS = 4096;
+
+        private final AtomicReferenceArray<String> seenTypes;
+        private final AtomicReferenceArray<String> seenDescriptors;
+        private final Set<String> packages = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger maxMajorVersion = new AtomicInteger();
+
+        ReferencedPackages() {
+            this(SEEN_SLOTS);
+        }
+
+        // seenSlots 为去重表的槽位数，须为 2 的幂；只扫描一个类时用小的表
+        ReferencedPackages(int seenSlots) {
+            if (Integer.bitCount(seenSlots) != 1) {
+                throw new IllegalArgumentException("seenSlots must be a power of two: " + seenSlots);
+            }
+            this.seenTypes = new AtomicReferenceArray<>(seenSlots);
+            this.seenDescriptors = new AtomicReferenceArray<>(seenSlots);
+        }
+
+        // version 为 ClassVisitor.visit 收到的版本号，低 16 位是主版本号
+        void addClassVersion(int version) {
+            int major = version & 0xFFFF;
+            if (major > maxMajorVersion.get()) {
+                maxMajorVersion.accumulateAndGet(major, Math::max);
+            }
+        }
+
+        int getMaxMajorVersion() {
+            return maxMajorVersion.get();
+        }
+
+        // internalName 为 a/b/C 形式，也接受数组描述符（[La/b/C;）
+        void addType(String internalName) {
+            if (internalName.startsWith("[")) {
+                addDescriptor(internalName);
+            } else if (firstSeen(seenTypes, internalName)) {
+                typeAdded(internalName);
+            }
+        }
+
+        // 类型不在去重表中时调用，同一个类型可能被调用多次；ReachabilityPruner 覆盖它来收集类之间的引用边
+        void typeAdded(String internalName) {
+            int slash = internalName.lastIndexOf('/');
+            if (slash > 0) {
+                packages.add(internalName.substring(0, slash));
+            }
+        }
+
+        // 字段或方法描述符，取出其中所有的 L...; 类型
+        void addDescriptor(String descriptor) {
+            if (!firstSeen(seenDescriptors, descriptor)) {
+                return;
+            }
+            int pos = descriptor.indexOf('L');
+            while (pos >= 0) {
+                int end = descriptor.indexOf(';', pos);
+                if (end < 0) {
+                    return;
+                }
+                addType(descriptor.substring(pos + 1, end));
+                pos = descriptor.indexOf('L', end);
+            }
+        }
+
+        // value 已在它的槽位中时返回 false，否则写入槽位并返回 true
+        private static boolean firstSeen(AtomicReferenceArray<String> seen, String value) {
+            int hash = value.hashCode();
+            int slot = (hash ^ (hash >>> 16)) & (seen.length() - 1);
+            if (value.equals(seen.get(slot))) {
+                return false;
+            }
+            seen.set(slot, value);
+            return true;
+        }
+
+        // 包名为内部名形式（a/b）
+        Set<String> getPackages() {
+            return packages;
+        }
+    }
+
+    // 进行中的并行类扫描，get 等待全部分块完成
+    public static class ClassScan {
+        private final ReferencedPackages referenced;
+        private final List<Future<?>> futures;
+
+        ClassScan(ReferencedPackages referenced, List<Future<?>> futures) {
+            this.referenced = referenced;
+            this.futures = futures;
+        }
+
+        ReferencedPackages get() throws IOException {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while scanning classes", e);
+                } catch (ExecutionException e) {
+                    throw new IOException("Failed to scan classes", e.getCause());
+                }
+            }
+            return referenced;
+        }
+    }
+
+    static class ClassDependencyVisitor extends ClassVisitor {
+        private final ReferencedPackages referenced;
+        private final MethodVisitor methodVisitor;
+        private final FieldVisitor fieldVisitor;
+        private final AnnotationVisitor annotationVisitor;
+        private final boolean recordVersion;
+
+        public ClassDependencyVisitor(ReferencedPackages referenced) {
+            this(referenced, true);
+        }
+
+        // recordVersion 为 false 时类文件版本不计入编译级别
+        public ClassDependencyVisitor(ReferencedPackages referenced, boolean recordVersion) {
             super(Opcodes.ASM9);
+            this.referenced = referenced;
+            this.recordVersion = recordVersion;
+            // 注解、字段和方法访问器都不保存状态，每个类只建一个
+            this.annotationVisitor = new AnnotationVisitor(Opcodes.ASM9) {
+                @Override
+                public void visit(String name, Object value) {
+                    addConstant(value);
+                }
+
+                @Override
+                public void visitEnum(String name, String descriptor, String value) {
+                    referenced.addDescriptor(descriptor);
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+                    referenced.addDescriptor(descriptor);
+                    return this;
+                }
+
+                @Override
+                public AnnotationVisitor visitArray(String name) {
+                    return this;
+                }
+            };
+            this.fieldVisitor = new FieldVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    return annotation(descriptor);
+                }
+            };
+            this.methodVisitor = new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotationDefault() {
+                    return annotationVisitor;
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    return annotation(descriptor);
+                }
+
+                @Override
+                public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+                    return annotation(descriptor);
+                }
+
+                @Override
+                public void visitTypeInsn(int opcode, String type) {
+                    referenced.addType(type);
+                }
+
+                @Override
+                public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                    referenced.addType(owner);
+                    referenced.addDescriptor(descriptor);
+                }
+
+                @Override
+                public void visitMethodInsn(int opcode, String owner, String name,
+                                            String descriptor, boolean isInterface) {
+                    referenced.addType(owner);
+                    referenced.addDescriptor(descriptor);
+                }
+
+                // 方法引用和 lambda：引导方法参数中的 Handle 指向实际被引用的类
+                @Override
+                public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle,
+                                                   Object... bootstrapMethodArguments) {
+                    referenced.addDescriptor(descriptor);
+                    addConstant(bootstrapMethodHandle);
+                    for (Object argument : bootstrapMethodArguments) {
+                        addConstant(argument);
+                    }
+                }
+
+                // Foo.class 等类字面量
+                @Override
+                public void visitLdcInsn(Object value) {
+                    addConstant(value);
+                }
+
+                @Override
+                public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+                    referenced.addDescriptor(descriptor);
+                }
+
+                @Override
+                public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+                    if (type != null) {
+                        referenced.addType(type);
+                    }
+                }
+            };
         }
-        
+
+        // 常量池中的 Type、Handle 和 ConstantDynamic 引用的类型
+        private void addConstant(Object value) {
+            if (value instanceof Type) {
+                Type type = (Type) value;
+                if (type.getSort() == Type.OBJECT) {
+                    referenced.addType(type.getInternalName());
+                } else if (type.getSort() == Type.ARRAY || type.getSort() == Type.METHOD) {
+                    referenced.addDescriptor(type.getDescriptor());
+                }
+            } else if (value instanceof Handle) {
+                Handle handle = (Handle) value;
+                referenced.addType(handle.getOwner());
+                referenced.addDescriptor(handle.getDesc());
+            } else if (value instanceof ConstantDynamic) {
+                ConstantDynamic constant = (ConstantDynamic) value;
+                referenced.addDescriptor(constant.getDescriptor());
+                addConstant(constant.getBootstrapMethod());
+                for (int i = 0; i < constant.getBootstrapMethodArgumentCount(); i++) {
+                    addConstant(constant.getBootstrapMethodArgument(i));
+                }
+            }
+        }
+
         @Override
         public void visit(int version, int access, String name, String signature, 
                         String superName, String[] interfaces) {
-            this.className = name.replace('/', '.');
+            if (recordVersion) {
+                referenced.addClassVersion(version);
+            }
             if (superName != null) {
-                importedClasses.add(superName.replace('/', '.'));
+                referenced.addType(superName);
             }
             if (interfaces != null) {
                 for (String iface : interfaces) {
-                    importedClasses.add(iface.replace('/', '.'));
+                    referenced.addType(iface);
                 }
             }
         }
         
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return annotation(descriptor);
+        }
+
+        // 注解的类字面量、枚举值和嵌套注解也算引用
+        private AnnotationVisitor annotation(String descriptor) {
+            referenced.addDescriptor(descriptor);
+            return annotationVisitor;
+        }
+
         @Override
         public FieldVisitor visitField(int access, String name, String descriptor,
                                      String signature, Object value) {
-            addTypeFromDescriptor(descriptor);
-            return null;
+            referenced.addDescriptor(descriptor);
+            return fieldVisitor;
         }
         
         @Override
         public MethodVisitor visitMethod(int access, String name, String descriptor,
                                        String signature, String[] exceptions) {
-            addTypeFromDescriptor(descriptor);
+            referenced.addDescriptor(descriptor);
             if (exceptions != null) {
                 for (String exception : exceptions) {
-                    importedClasses.add(exception.replace('/', '.'));
+                    referenced.addType(exception);
                 }
             }
-            return new MethodVisitor(Opcodes.ASM9) {
-                @Override
-                public void visitTypeInsn(int opcode, String type) {
-                    importedClasses.add(type.replace('/', '.'));
-                }
-                
-                @Override
-                public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
-                    importedClasses.add(owner.replace('/', '.'));
-                    addTypeFromDescriptor(descriptor);
-                }
-                
-                @Override
-                public void visitMethodInsn(int opcode, String owner, String name,
-                                          String descriptor, boolean isInterface) {
-                    importedClasses.add(owner.replace('/', '.'));
-                    addTypeFromDescriptor(descriptor);
-                }
-            };
-        }
-        
-        private void addTypeFromDescriptor(String descriptor) {
-            // 解析类型描述符并添加到导入的类集合中
-            try {
-                Type type = Type.getType(descriptor);
-                if (type.getSort() == Type.OBJECT) {
-                    importedClasses.add(type.getClassName());
-                } else if (type.getSort() == Type.ARRAY) {
-                    Type elementType = type.getElementType();
-                    if (elementType.getSort() == Type.OBJECT) {
-                        importedClasses.add(elementType.getClassName());
-                    }
-                }
-            } catch (Exception ignored) {
-                // 忽略无效的描述符
-            }
+            return methodVisitor;
         }
-        
-        public String getClassName() {
-            return className;
+    }
+
+    private void addNestedJarDependencies(Map<String, Dependency> dependencies, ArchiveIndex index) throws IOException {
+        if (localIndex == null) {
+            return;
         }
-        
-        public Set<String> getImportedClasses() {
-            return importedClasses;
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            String name = entry.getName();
+            if (!name.endsWith(".jar") || !(name.startsWith("BOOT-INF/lib/") || name.startsWith("WEB-INF/lib/"))) {
+                continue;
+            }
+            ByteBuffer data = entry.getMethod() == ArchiveIndex.Entry.STORED ? index.rawData(entry)
+                    : ByteBuffer.wrap(index.readBytes(entry));
+            DependencyResolver.Artifact artifact = localIndex.findBySha1(LocalRepositoryIndex.sha1(data));
+            if (artifact == null) {
+                artifact = localIndex.findByFileName(name);
+            }
+            if (artifact != null) {
+                addKnownDependency(dependencies, artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion());
+            }
         }
     }
 
-    private void addDependencyFromFilename(Set<Dependency> dependencies, String filename) {
-        // 这里的实现是一个简化版本
-        // 实际项目中可能需要更复杂的依赖解析逻辑
+    private void addDependencyFromFilename(Map<String, Dependency> dependencies, String filename) {
+        DependencyResolver.Artifact artifact = localIndex != null ? localIndex.findByFileName(filename) : null;
+        if (artifact != null) {
+            addKnownDependency(dependencies, artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion());
+            return;
+        }
+        // 本地仓库中找不到时只能用文件名
         String artifactId = filename.substring(0, filename.lastIndexOf(".jar"));
         
         Dependency dependency = new Dependency();
@@ -259,10 +678,10 @@ public class MavenProjectGenerator {
         dependency.setVersion("unknown");
         dependency.setScope("compile");
         
-        dependencies.add(dependency);
+        addDependency(dependencies, dependency);
     }
 
-    private void addCommonDependencies(Set<Dependency> dependencies) {
+    private void addCommonDependencies(Map<String, Dependency> dependencies) {
         // 添加一些常用的依赖
         String[][] commonDeps = {
             {"org.slf4j", "slf4j-api", "1.7.32"},
@@ -278,7 +697,7 @@ public class MavenProjectGenerator {
             if (dep.length > 3) {
                 dependency.setScope(dep[3]);
             }
-            dependencies.add(dependency);
+            addDependency(dependencies, dependency);
         }
     }
 
@@ -295,6 +714,9 @@ public class MavenProjectGenerator {
         Xpp3Dom configuration = new Xpp3Dom("configuration");
         addXpp3DomChild(configuration, "source", "${maven.compiler.source}");
         addXpp3DomChild(configuration, "target", "${maven.compiler.target}");
+        if (model.getProperties().containsKey("maven.compiler.release")) {
+            addXpp3DomChild(configuration, "release", "${maven.compiler.release}");
+        }
         compilerPlugin.setConfiguration(configuration);
         
         // 添加源码插件
@@ -322,26 +744,26 @@ public class MavenProjectGenerator {
         parent.addChild(child);
     }
 
-    private boolean isPomFile(String entryName) {
-        return entryName.endsWith("pom.xml") || 
-               entryName.matches("META-INF/maven/.*/pom.xml");
-    }
-
-    private Model readPomFromJar(JarFile jarFile, JarEntry pomEntry) {
-        try (InputStream is = jarFile.getInputStream(pomEntry)) {
+    private Model readPom(InputStream is) {
+        try {
             org.apache.maven.model.io.xpp3.MavenXpp3Reader reader = 
                 new org.apache.maven.model.io.xpp3.MavenXpp3Reader();
             return reader.read(new InputStreamReader(is, "UTF-8"));
         } catch (Exception e) {
             System.err.println("Failed to read pom.xml from jar: " + e.getMessage());
+            metrics.recordFailure(DecompileMetrics.FAILURE_POM);
             return null;
         }
     }
 
+    @SuppressWarnings("try")
     private void writePomXml(Model model, Path projectPath) throws IOException {
-        File pomFile = projectPath.resolve("pom.xml").toFile();
-        try (FileWriter writer = new FileWriter(pomFile)) {
-            new MavenXpp3Writer().write(writer, model);
+        try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_POM_WRITE)) {
+            File pomFile = projectPath.resolve("pom.xml").toFile();
+            try (FileWriter writer = new FileWriter(pomFile)) {
+                new MavenXpp3Writer().write(writer, model);
+            }
+            metrics.addBytesWritten(pomFile.length());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.example;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Repository;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+// 由 JAR 中内嵌的 pom.xml 重建项目 pom：胖 JAR（shade、assembly 打包）中通常有几十个 META-INF/maven/**/pom.xml，
+// 全部在线程池中并行解析，按清单中 Start-Class（没有时用 Main-Class）所在的包选出项目自己的 pom 作为根，
+// 其余的 pom 是被打进来的库，作为依赖合并进根的 <dependencies>。
+// 合并只按字段逐个复制 Model 中需要的部分（坐标、名称、属性、依赖、依赖管理、仓库），不复制 build、profiles、modules
+public class PomReconstructor {
+
+    private final ExecutorService executor;
+    private final DecompileMetrics metrics;
+
+    // executor 为 null 时在调用线程中解析
+    public PomReconstructor(ExecutorService executor, DecompileMetrics metrics) {
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    // 只认 Maven 打包时写入的 META-INF/maven/<groupId>/<artifactId>/pom.xml；
+    // 作为资源打进来的 pom.xml（如 archetype-resources/pom.xml、模板）不是构件的 pom
+    static boolean isPomFile(String entryName) {
+        return entryName.startsWith("META-INF/maven/") && entryName.endsWith("/pom.xml");
+    }
+
+    // 把重建结果合并进 model，JAR 中没有可解析的 pom 时返回 false，model 不变
+    @SuppressWarnings("try")
+    public boolean reconstruct(ArchiveIndex index, Model model) throws IOException {
+        try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_POM_RECONSTRUCT)) {
+            List<Model> poms = readAll(index);
+            if (poms.isEmpty()) {
+                return false;
+            }
+            merge(model, selectRoot(poms, entryPackage(index)), poms);
+            return true;
+        }
+    }
+
+    // 解析失败的 pom 跳过并计入失败数，结果保持条目在 JAR 中的顺序
+    List<Model> readAll(ArchiveIndex index) throws IOException {
+        List<ArchiveIndex.Entry> entries = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (!entry.isDirectory() && isPomFile(entry.getName())) {
+                entries.add(entry);
+            }
+        }
+        List<Model> models = new ArrayList<>();
+        if (executor == null || entries.size() < 2) {
+            for (ArchiveIndex.Entry entry : entries) {
+                addIfPresent(models, read(index, entry));
+            }
+            return models;
+        }
+        List<Future<Model>> futures = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : entries) {
+            futures.add(executor.submit(() -> read(index, entry)));
+        }
+        for (Future<Model> future : futures) {
+            try {
+                addIfPresent(models, future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading embedded poms", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to read embedded poms", e.getCause());
+            }
+        }
+        return models;
+    }
+
+    private static void addIfPresent(List<Model> models, Model model) {
+        if (model != null) {
+            models.add(model);
+        }
+    }
+
+    private Model read(ArchiveIndex index, ArchiveIndex.Entry entry) {
+        try (InputStream is = index.getInputStream(entry)) {
+            // 库的 pom 只用到坐标和依赖，非严格模式跳过未知元素
+            return new MavenXpp3Reader().read(new InputStreamReader(is, StandardCharsets.UTF_8), false);
+        } catch (Exception e) {
+            System.err.println("Failed to read " + entry.getName() + " from jar: " + e.getMessage());
+            metrics.recordFailure(DecompileMetrics.FAILURE_POM);
+            return null;
+        }
+    }
+
+    // 清单中入口类所在的包，没有时返回 null
+    private static String entryPackage(ArchiveIndex index) throws IOException {
+        Manifest manifest = index.getManifest();
+        if (manifest == null) {
+            return null;
+        }
+        Attributes attributes = manifest.getMainAttributes();
+        String entryClass = attributes.getValue("Start-Class");
+        if (entryClass == null) {
+            entryClass = attributes.getValue("Main-Class");
+        }
+        if (entryClass == null || entryClass.trim().isEmpty()) {
+            return null;
+        }
+        entryClass = entryClass.trim();
+        int dot = entryClass.lastIndexOf('.');
+        return dot > 0 ? entryClass.substring(0, dot) : null;
+    }
+
+    // 包名与 groupId.artifactId（- 换成 .）最长前缀匹配的 pom 优先，其次是 groupId 最长前缀匹配的；
+    // 都不匹配时只有一个 pom 就用它，否则沿用 JAR 中的第一个
+    static Model selectRoot(List<Model> poms, String entryPackage) {
+        Model best = null;
+        int bestScore = 0;
+        if (entryPackage != null) {
+            String pkg = entryPackage + ".";
+            for (Model pom : poms) {
+                String groupId = groupId(pom);
+                if (groupId == null) {
+                    continue;
+                }
+                int score = 0;
+                String artifactPrefix = groupId + "." + String.valueOf(pom.getArtifactId()).replace('-', '.') + ".";
+                if (pkg.startsWith(artifactPrefix)) {
+                    score = artifactPrefix.length() * 2;
+                } else if (pkg.startsWith(groupId + ".")) {
+                    score = groupId.length() + 1;
+                }
+                if (score > bestScore) {
+                    best = pom;
+                    bestScore = score;
+                }
+            }
+        }
+        return best != null ? best : poms.get(0);
+    }
+
+    // 以 root 的坐标和依赖为准，其余 pom 的坐标作为依赖追加（groupId:artifactId 相同的只保留先出现的）。
+    // model 中已有的属性（编码、编译版本）保留，root 中同名的属性覆盖它们
+    static void merge(Model model, Model root, List<Model> poms) {
+        if (root.getParent() != null) {
+            model.setParent(root.getParent().clone());
+        }
+        if (groupId(root) != null) {
+            model.setGroupId(groupId(root));
+        }
+        if (root.getArtifactId() != null) {
+            model.setArtifactId(root.getArtifactId());
+        }
+        if (version(root) != null) {
+            model.setVersion(version(root));
+        }
+        model.setName(root.getName());
+        model.setDescription(root.getDescription());
+        model.setUrl(root.getUrl());
+        model.getProperties().putAll(root.getProperties());
+        if (root.getDependencyManagement() != null) {
+            model.setDependencyManagement(root.getDependencyManagement().clone());
+        }
+        for (Repository repository : root.getRepositories()) {
+            model.addRepository(repository.clone());
+        }
+
+        List<Dependency> dependencies = new ArrayList<>();
+        Set<String> artifacts = new HashSet<>();
+        for (Dependency dependency : root.getDependencies()) {
+            if (artifacts.add(dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getType()
+                    + ":" + dependency.getClassifier())) {
+                dependencies.add(dependency.clone());
+            }
+        }
+        for (Model pom : poms) {
+            if (pom == root || groupId(pom) == null || pom.getArtifactId() == null) {
+                continue;
+            }
+            Dependency dependency = new Dependency();
+            dependency.setGroupId(groupId(pom));
+            dependency.setArtifactId(pom.getArtifactId());
+            dependency.setVersion(version(pom));
+            if (artifacts.add(dependency.getGroupId() + ":" + dependency.getArtifactId())
+                    && !declared(root, dependency)) {
+                dependencies.add(dependency);
+            }
+        }
+        model.setDependencies(dependencies);
+    }
+
+    // root 中已声明（任意 type、classifier）的构件不再重复添加
+    private static boolean declared(Model root, Dependency candidate) {
+        for (Dependency dependency : root.getDependencies()) {
+            if (candidate.getArtifactId().equals(dependency.getArtifactId())
+                    && candidate.getGroupId().equals(dependency.getGroupId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 省略的 groupId、version 继承自 parent
+    static String groupId(Model pom) {
+        Parent parent = pom.getParent();
+        return pom.getGroupId() != null ? pom.getGroupId() : parent != null ? parent.getGroupId() : null;
+    }
+
+    static String version(Model pom) {
+        Parent parent = pom.getParent();
+        return pom.getVersion() != null ? pom.getVersion() : parent != null ? parent.getVersion() : null;
+    }
+}
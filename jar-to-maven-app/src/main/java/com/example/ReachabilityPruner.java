@@ -0,0 +1,204 @@
+package com.example;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+// 反编译前的可达性裁剪：用 ClassDependencyVisitor 收集的引用建立类引用图（以外部类为节点，内部类并入外部类），
+// 从根出发求可达集合，只把可达的类交给 CFR。根由 decompile.pruneRoots 配置，逗号分隔，可以是：
+//   manifest     清单中的 Main-Class、Start-Class
+//   spring       带 Spring 组件注解（@Component、@Service、@Controller、@Configuration 等）的类
+//   services     META-INF/services/* 与 META-INF/spring.factories 中列出的类（通过反射加载，图中没有引用边）
+//   boot-classes BOOT-INF/classes、WEB-INF/classes 下的全部类
+//   其他         类的全限定名，或以 .* 结尾的包前缀（含子包）
+public class ReachabilityPruner {
+
+    private static final Set<String> SPRING_STEREOTYPES = new HashSet<>(Arrays.asList(
+            "Lorg/springframework/stereotype/Component;",
+            "Lorg/springframework/stereotype/Service;",
+            "Lorg/springframework/stereotype/Repository;",
+            "Lorg/springframework/stereotype/Controller;",
+            "Lorg/springframework/web/bind/annotation/RestController;",
+            "Lorg/springframework/web/bind/annotation/ControllerAdvice;",
+            "Lorg/springframework/web/bind/annotation/RestControllerAdvice;",
+            "Lorg/springframework/context/annotation/Configuration;",
+            "Lorg/springframework/boot/autoconfigure/SpringBootApplication;",
+            "Lorg/springframework/boot/context/properties/ConfigurationProperties;"));
+
+    private final List<String> roots;
+
+    public ReachabilityPruner(List<String> roots) {
+        this.roots = roots;
+    }
+
+    // 未开启 decompile.prune 时返回 null
+    public static ReachabilityPruner fromConfig(AppConfig config) {
+        if (!config.getBoolean("decompile.prune", false)) {
+            return null;
+        }
+        List<String> roots = new ArrayList<>();
+        for (String root : config.get("decompile.pruneRoots", "manifest,spring,services,boot-classes").split(",")) {
+            if (!root.trim().isEmpty()) {
+                roots.add(root.trim());
+            }
+        }
+        return new ReachabilityPruner(roots);
+    }
+
+    // classPaths 为 JarClassFileSource.toClassPath 形式，返回其中可达的部分（保持原顺序）。
+    // 找不到任何根时不裁剪，原样返回
+    public List<String> prune(ArchiveIndex index, List<String> classPaths, boolean parallel) throws IOException {
+        Map<String, ArchiveIndex.Entry> entries = new HashMap<>();
+        Set<String> bootClasses = new HashSet<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                String classPath = JarClassFileSource.toClassPath(entry.getName());
+                entries.putIfAbsent(classPath, entry);
+                // 去掉了 BOOT-INF/classes、WEB-INF/classes 前缀的即为应用自身的类
+                if (!classPath.equals(entry.getName())) {
+                    bootClasses.add(DecompileEngine.outerClassPath(classPath));
+                }
+            }
+        }
+
+        // 图的节点是外部类路径（a/b/C），边指向被引用类的外部类
+        Map<String, Set<String>> graph = new ConcurrentHashMap<>();
+        Set<String> annotated = ConcurrentHashMap.newKeySet();
+        Stream<String> stream = parallel ? classPaths.parallelStream() : classPaths.stream();
+        stream.forEach(classPath -> {
+            ArchiveIndex.Entry entry = entries.get(classPath);
+            if (entry == null) {
+                return;
+            }
+            String node = DecompileEngine.outerClassPath(classPath);
+            Set<String> edges = new HashSet<>();
+            // 只扫描一个类，用小的去重表；edges 本身是集合，重复调用 typeAdded 无妨
+            MavenProjectGenerator.ReferencedPackages references = new MavenProjectGenerator.ReferencedPackages(64) {
+                @Override
+                void typeAdded(String internalName) {
+                    edges.add(DecompileEngine.outerClassPath(internalName));
+                }
+            };
+            try {
+                new ClassReader(index.readBytes(entry)).accept(new MavenProjectGenerator.ClassDependencyVisitor(references) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                        if (SPRING_STEREOTYPES.contains(descriptor)) {
+                            annotated.add(node);
+                        }
+                        return super.visitAnnotation(descriptor, visible);
+                    }
+                }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            graph.computeIfAbsent(node, k -> ConcurrentHashMap.newKeySet()).addAll(edges);
+        });
+
+        Set<String> rootNodes = findRoots(index, graph.keySet(), annotated, bootClasses);
+        if (rootNodes.isEmpty()) {
+            System.err.println("No reachability roots found in " + index.getName() + ", decompiling all classes");
+            return classPaths;
+        }
+
+        Set<String> reachable = new HashSet<>(rootNodes);
+        Deque<String> queue = new ArrayDeque<>(rootNodes);
+        while (!queue.isEmpty()) {
+            Set<String> edges = graph.get(queue.poll());
+            if (edges == null) {
+                continue;
+            }
+            for (String target : edges) {
+                if (graph.containsKey(target) && reachable.add(target)) {
+                    queue.add(target);
+                }
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        for (String classPath : classPaths) {
+            if (reachable.contains(DecompileEngine.outerClassPath(classPath))) {
+                result.add(classPath);
+            }
+        }
+        System.out.println("Pruned " + (classPaths.size() - result.size()) + " of " + classPaths.size()
+                + " classes unreachable from " + rootNodes.size() + " roots");
+        return result;
+    }
+
+    private Set<String> findRoots(ArchiveIndex index, Set<String> nodes, Set<String> annotated, Set<String> bootClasses)
+            throws IOException {
+        Set<String> result = new HashSet<>();
+        for (String root : roots) {
+            switch (root) {
+                case "manifest":
+                    Manifest manifest = index.getManifest();
+                    if (manifest != null) {
+                        Attributes attributes = manifest.getMainAttributes();
+                        addClassRoot(result, nodes, attributes.getValue("Main-Class"));
+                        addClassRoot(result, nodes, attributes.getValue("Start-Class"));
+                    }
+                    break;
+                case "spring":
+                    result.addAll(annotated);
+                    break;
+                case "services":
+                    addServiceRoots(index, result, nodes);
+                    break;
+                case "boot-classes":
+                    for (String node : bootClasses) {
+                        if (nodes.contains(node)) {
+                            result.add(node);
+                        }
+                    }
+                    break;
+                default:
+                    if (root.endsWith(".*")) {
+                        String prefix = root.substring(0, root.length() - 1).replace('.', '/');
+                        for (String node : nodes) {
+                            if (node.startsWith(prefix)) {
+                                result.add(node);
+                            }
+                        }
+                    } else {
+                        addClassRoot(result, nodes, root);
+                    }
+            }
+        }
+        return result;
+    }
+
+    // META-INF/services/* 每行一个类名；spring.factories 为 key=类名,类名 形式，可能用 \ 续行
+    private void addServiceRoots(ArchiveIndex index, Set<String> result, Set<String> nodes) throws IOException {
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            String name = entry.getName();
+            if (entry.isDirectory() || !(name.contains("META-INF/services/") || name.endsWith("META-INF/spring.factories"))) {
+                continue;
+            }
+            String content = new String(index.readBytes(entry), StandardCharsets.UTF_8);
+            for (String token : content.split("[\\s=,\\\\]+")) {
+                if (!token.startsWith("#")) {
+                    addClassRoot(result, nodes, token);
+                }
+            }
+        }
+    }
+
+    private static void addClassRoot(Set<String> result, Set<String> nodes, String className) {
+        if (className == null || className.trim().isEmpty()) {
+            return;
+        }
+        String node = DecompileEngine.outerClassPath(className.trim().replace('.', '/'));
+        if (nodes.contains(node)) {
+            result.add(node);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// 资源提取阶段：与反编译同时进行。STORED 条目在调用线程中直接从归档的内存映射写入文件，
+// DEFLATED 条目交给线程池解压（每个线程复用 Inflater 和缓冲区，见 ArchiveIndex.transferTo）。
+// 同一目标路径只写一次（以归档中第一个条目为准），已存在的文件被覆盖；单个资源失败只记录，不中断整个流程
+public class ResourceExtractor {
+
+    private final ExecutorService executor;
+    private final DecompileMetrics metrics;
+    private final Set<Path> targets = ConcurrentHashMap.newKeySet();
+    private final Set<Path> createdDirs = ConcurrentHashMap.newKeySet();
+    private final List<Future<?>> futures = new ArrayList<>();
+    private int extracted;
+
+    // executor 为 null 时全部在调用线程中完成
+    public ResourceExtractor(ExecutorService executor, DecompileMetrics metrics) {
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    public void extract(ArchiveIndex index, ArchiveIndex.Entry entry, Path target) {
+        if (!targets.add(target)) {
+            return;
+        }
+        extracted++;
+        if (executor == null || entry.getMethod() == ArchiveIndex.Entry.STORED) {
+            copy(index, entry, target);
+        } else {
+            futures.add(executor.submit(() -> copy(index, entry, target)));
+        }
+    }
+
+    // 等待所有已提交的解压任务，返回提取的资源数
+    public int await() throws IOException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while extracting resources", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to extract resources", e.getCause());
+            }
+        }
+        futures.clear();
+        return extracted;
+    }
+
+    @SuppressWarnings("try")
+    private void copy(ArchiveIndex index, ArchiveIndex.Entry entry, Path target) {
+        try (DecompileMetrics.Timer ignored = metrics.time(DecompileMetrics.PHASE_RESOURCES)) {
+            Path parent = target.getParent();
+            if (parent != null && !createdDirs.contains(parent)) {
+                Files.createDirectories(parent);
+                createdDirs.add(parent);
+            }
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                metrics.addBytesWritten(index.transferTo(entry, channel));
+            }
+            metrics.addBytesRead(entry.getCompressedSize());
+        } catch (IOException e) {
+            System.err.println("Failed to extract resource " + entry.getName() + ": " + e.getMessage());
+            metrics.recordFailure(DecompileMetrics.FAILURE_RESOURCE);
+        }
+    }
+}
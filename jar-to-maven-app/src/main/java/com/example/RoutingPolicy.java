@@ -0,0 +1,83 @@
+package com.example;
+
+import org.objectweb.asm.ClassReader;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+// 后端路由策略：按外部类（连同内部类）决定交给快速后端还是 CFR。
+// 超大类（类字节之和超过上限）和生成代码（父类或接口属于常见代码生成框架的基类，或类名匹配配置的正则）走快速后端，
+// 这类代码 CFR 反编译耗时长、结果价值低，通常应从 .proto、.thrift 等原始定义重新生成
+public class RoutingPolicy {
+
+    // 0 表示不按大小路由
+    private final long maxClassBytes;
+    // 内部名形式（a/b/C）
+    private final Set<String> generatedSupertypes;
+    private final List<Pattern> namePatterns;
+
+    public RoutingPolicy(long maxClassBytes, Collection<String> generatedSupertypes, Collection<String> namePatterns) {
+        this.maxClassBytes = maxClassBytes;
+        this.generatedSupertypes = new HashSet<>();
+        for (String supertype : generatedSupertypes) {
+            if (!supertype.trim().isEmpty()) {
+                this.generatedSupertypes.add(supertype.trim().replace('.', '/'));
+            }
+        }
+        this.namePatterns = new ArrayList<>();
+        for (String pattern : namePatterns) {
+            if (!pattern.trim().isEmpty()) {
+                this.namePatterns.add(Pattern.compile(pattern.trim()));
+            }
+        }
+    }
+
+    // 快速后端只输出签名，路由需要显式开启；三个条件都未配置（默认）时返回 null，全部交给 CFR
+    public static RoutingPolicy fromConfig(AppConfig config) {
+        RoutingPolicy policy = new RoutingPolicy(config.getInt("engine.fastMinKb", 0) * 1024L,
+                Arrays.asList(config.get("engine.fastSupertypes", "").split(",")),
+                Arrays.asList(config.get("engine.fastNamePatterns", "").split(",")));
+        if (policy.maxClassBytes <= 0 && policy.generatedSupertypes.isEmpty() && policy.namePatterns.isEmpty()) {
+            return null;
+        }
+        return policy;
+    }
+
+    // outerPath 为外部类路径（a/b/C），classes 为该组各类路径对应的类字节
+    public boolean preferFast(String outerPath, Map<String, byte[]> classes) {
+        String className = outerPath.replace('/', '.');
+        for (Pattern pattern : namePatterns) {
+            if (pattern.matcher(className).matches()) {
+                return true;
+            }
+        }
+        long total = 0;
+        for (byte[] bytes : classes.values()) {
+            total += bytes.length;
+        }
+        if (maxClassBytes > 0 && total > maxClassBytes) {
+            return true;
+        }
+        if (generatedSupertypes.isEmpty()) {
+            return false;
+        }
+        // 只解析常量池和类头，不读方法体
+        for (byte[] bytes : classes.values()) {
+            try {
+                ClassReader reader = new ClassReader(bytes);
+                if (reader.getSuperName() != null && generatedSupertypes.contains(reader.getSuperName())) {
+                    return true;
+                }
+                for (String iface : reader.getInterfaces()) {
+                    if (generatedSupertypes.contains(iface)) {
+                        return true;
+                    }
+                }
+            } catch (RuntimeException e) {
+                // 类头解析不了的成员不参与判断，由 CFR 处理和报告；组内其他类仍然检查
+                continue;
+            }
+        }
+        return false;
+    }
+}
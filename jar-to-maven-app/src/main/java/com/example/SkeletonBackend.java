@@ -0,0 +1,66 @@
+package com.example;
+
+import org.benf.cfr.reader.api.ClassFileSource;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+
+import java.io.IOException;
+import java.util.*;
+
+// 快速后端：用 ASM 只输出签名（成员类嵌套输出），方法体抛出 UnsupportedOperationException，可附带 Textifier 打印的字节码注释。
+// 不做控制流和类型分析，耗时与类大小成线性，比 CFR 快一到两个数量级，适合生成代码和超大类；输出标记为降级，不写入缓存。
+// 单个类解析失败时跳过，由 DecompileEngine 交给 CFR
+public class SkeletonBackend implements DecompilerBackend {
+
+    private static final String COMMENT = "Generated by the ASM skeleton backend instead of a full decompilation";
+
+    private final DecompileMetrics metrics;
+    private final boolean withBytecode;
+
+    public SkeletonBackend(DecompileMetrics metrics, boolean withBytecode) {
+        this.metrics = metrics;
+        this.withBytecode = withBytecode;
+    }
+
+    public static SkeletonBackend fromConfig(AppConfig config, DecompileMetrics metrics) {
+        return new SkeletonBackend(metrics, config.getBoolean("engine.skeletonBytecode", true));
+    }
+
+    @Override
+    public String getName() {
+        return "skeleton";
+    }
+
+    @Override
+    public void decompile(ClassFileSource source, List<String> classPaths, OutputSinkFactory outputSinkFactory) {
+        for (Map.Entry<String, List<String>> group : DecompileEngine.groupByOuterClass(classPaths).entrySet()) {
+            String outerPath = group.getKey();
+            String simpleName = outerPath.substring(outerPath.lastIndexOf('/') + 1);
+            // package-info、module-info 不是类型，生成存根反而无法编译
+            if ("package-info".equals(simpleName) || "module-info".equals(simpleName)) {
+                continue;
+            }
+            long start = System.nanoTime();
+            String java;
+            try {
+                Map<String, byte[]> classes = new HashMap<>();
+                for (String path : group.getValue()) {
+                    Pair<byte[], String> content = source.getClassFileContent(path);
+                    if (content != null) {
+                        classes.put(path.substring(0, path.length() - ".class".length()), content.getFirst());
+                    }
+                }
+                if (!classes.containsKey(outerPath)) {
+                    continue;
+                }
+                java = SkeletonGenerator.generate(outerPath, classes, COMMENT, withBytecode);
+            } catch (IOException | RuntimeException e) {
+                metrics.recordFailure(DecompileMetrics.FAILURE_CLASS);
+                System.err.println("Failed to generate a skeleton for " + outerPath.replace('/', '.') + ": " + e);
+                continue;
+            }
+            metrics.recordClass(outerPath.replace('/', '.'), System.nanoTime() - start);
+            DecompileEngine.writeJava(outputSinkFactory, new Source(outerPath, java, true));
+        }
+    }
+}
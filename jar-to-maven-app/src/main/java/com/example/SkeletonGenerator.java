@@ -0,0 +1,400 @@
+package com.example;
+
+import org.objectweb.asm.*;
+import org.objectweb.asm.util.Textifier;
+import org.objectweb.asm.util.TraceMethodVisitor;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.*;
+
+// 用 ASM 从类字节生成只有签名的 Java 源码：类声明、字段和方法签名，方法体抛出 UnsupportedOperationException。
+// 用于反编译失败或被取消的类，保证输出的项目中仍有该类型，调用方可以照常编译；
+// 也是 SkeletonBackend 的实现，此时成员类嵌套输出，方法体前可附带 Textifier 打印的字节码注释
+public class SkeletonGenerator {
+
+    private SkeletonGenerator() {
+    }
+
+    // reason 写入文件头注释，说明为何只有签名
+    public static String generate(byte[] classBytes, String reason) {
+        SkeletonVisitor visitor = visit(classBytes, false);
+        StringBuilder sb = visitor.renderHeader(reason + "\n * Only signatures are shown; inner classes are omitted.");
+        visitor.renderType(sb, "", null, Collections.<String, byte[]>emptyMap());
+        return sb.toString();
+    }
+
+    // classes 为外部类及其内部类的字节，键是内部名（a/b/C$D）；成员类按 InnerClasses 属性嵌套输出，匿名类和局部类省略。
+    // withBytecode 为 true 时每个方法体前附带字节码注释
+    public static String generate(String outerName, Map<String, byte[]> classes, String reason, boolean withBytecode) {
+        byte[] outer = classes.get(outerName);
+        if (outer == null) {
+            return generateEmpty(outerName, reason);
+        }
+        SkeletonVisitor visitor = visit(outer, withBytecode);
+        StringBuilder sb = visitor.renderHeader(reason + "\n * Only signatures are shown.");
+        visitor.renderType(sb, "", null, classes);
+        return sb.toString();
+    }
+
+    private static SkeletonVisitor visit(byte[] classBytes, boolean withBytecode) {
+        SkeletonVisitor visitor = new SkeletonVisitor(withBytecode);
+        // 不跳过方法体：构造器中对父类构造器的调用决定了存根的 super(...)
+        new ClassReader(classBytes).accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return visitor;
+    }
+
+    // 读不到类字节时的最小存根
+    public static String generateEmpty(String classPath, String reason) {
+        int slash = classPath.lastIndexOf('/');
+        StringBuilder sb = new StringBuilder();
+        sb.append("/*\n * ").append(reason).append("\n */\n");
+        if (slash > 0) {
+            sb.append("package ").append(classPath.substring(0, slash).replace('/', '.')).append(";\n\n");
+        }
+        sb.append("public class ").append(classPath.substring(slash + 1)).append(" {\n}\n");
+        return sb.toString();
+    }
+
+    private static class SkeletonVisitor extends ClassVisitor {
+        private final boolean withBytecode;
+        private String name;
+        private String packageName = "";
+        private String simpleName;
+        private int access;
+        private String superName;
+        private String[] interfaces;
+        private boolean isInterface;
+        private final List<Member> members = new ArrayList<>();
+        private String superConstructor;
+        // 成员类的内部名及其在 InnerClasses 属性中的访问标志（含 static）
+        private final Map<String, Integer> memberClasses = new LinkedHashMap<>();
+
+        SkeletonVisitor(boolean withBytecode) {
+            super(Opcodes.ASM9);
+            this.withBytecode = withBytecode;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.name = name;
+            int slash = name.lastIndexOf('/');
+            if (slash > 0) {
+                packageName = name.substring(0, slash).replace('/', '.');
+            }
+            simpleName = name.substring(slash + 1);
+            this.access = access;
+            this.superName = superName;
+            this.interfaces = interfaces;
+            isInterface = (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (this.name.equals(outerName) && innerName != null && (access & Opcodes.ACC_SYNTHETIC) == 0) {
+                memberClasses.put(name, access);
+            }
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            if ((access & Opcodes.ACC_SYNTHETIC) == 0) {
+                String modifiers = isInterface ? "" : modifiers(access, false);
+                StringBuilder sb = new StringBuilder(modifiers)
+                        .append(typeName(Type.getType(descriptor))).append(' ').append(name);
+                if ((access & Opcodes.ACC_FINAL) != 0) {
+                    // 编译期常量保留原值，switch 的 case 等处引用时才能编译
+                    sb.append(" = ").append(value != null ? constant(Type.getType(descriptor), value)
+                            : defaultValue(Type.getType(descriptor)));
+                }
+                members.add(new Member(sb.toString(), false, "", false));
+            }
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if ((access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0 || "<clinit>".equals(name)) {
+                return null;
+            }
+            Type method = Type.getMethodType(descriptor);
+            StringBuilder sb = new StringBuilder();
+            boolean hasBody = (access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) == 0;
+            if (isInterface) {
+                // 接口的私有方法（Java 9+）不能带 default
+                if ((access & Opcodes.ACC_PRIVATE) != 0) {
+                    sb.append("private ");
+                }
+                if ((access & Opcodes.ACC_STATIC) != 0) {
+                    sb.append("static ");
+                } else if (hasBody && (access & Opcodes.ACC_PRIVATE) == 0) {
+                    sb.append("default ");
+                }
+            } else {
+                sb.append(modifiers(access, false));
+            }
+            boolean constructor = "<init>".equals(name);
+            if (!constructor) {
+                sb.append(typeName(method.getReturnType())).append(' ').append(name);
+            }
+            StringBuilder suffix = new StringBuilder("(");
+            Type[] arguments = method.getArgumentTypes();
+            for (int i = 0; i < arguments.length; i++) {
+                suffix.append(i == 0 ? "" : ", ").append(typeName(arguments[i])).append(" arg").append(i);
+            }
+            suffix.append(')');
+            if (exceptions != null && exceptions.length > 0) {
+                List<String> thrown = new ArrayList<>();
+                for (String exception : exceptions) {
+                    thrown.add(javaName(exception));
+                }
+                suffix.append(" throws ").append(String.join(", ", thrown));
+            }
+            Member member = new Member(sb.toString(), constructor, suffix.toString(), hasBody);
+            members.add(member);
+            MethodVisitor trace = null;
+            if (withBytecode && hasBody) {
+                member.code = new Textifier();
+                trace = new TraceMethodVisitor(member.code);
+            }
+            if (!constructor || superConstructor != null) {
+                return trace;
+            }
+            // 记下父类构造器的描述符，父类没有无参构造器时存根的构造器要显式调用它
+            return new MethodVisitor(Opcodes.ASM9, trace) {
+                @Override
+                public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+                    if (superConstructor == null && opcode == Opcodes.INVOKESPECIAL && "<init>".equals(name)
+                            && owner.equals(superName)) {
+                        superConstructor = descriptor;
+                    }
+                    super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+                }
+            };
+        }
+
+        StringBuilder renderHeader(String comment) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("/*\n * ").append(comment).append("\n */\n");
+            if (!packageName.isEmpty()) {
+                sb.append("package ").append(packageName).append(";\n\n");
+            }
+            return sb;
+        }
+
+        // innerAccess 为 null 表示顶层类型，否则 simpleName 取 $ 之后的部分、修饰符取自 InnerClasses 属性
+        void renderType(StringBuilder sb, String indent, Integer innerAccess, Map<String, byte[]> classes) {
+            String typeName = simpleName;
+            int typeAccess = access;
+            if (innerAccess != null) {
+                typeName = simpleName.substring(simpleName.lastIndexOf('$') + 1);
+                typeAccess = innerAccess | (access & (Opcodes.ACC_INTERFACE | Opcodes.ACC_ANNOTATION | Opcodes.ACC_ENUM));
+            }
+            sb.append(indent).append(typeHeader(typeName, typeAccess, innerAccess != null)).append(" {\n");
+            String memberIndent = indent + "    ";
+            for (Member member : members) {
+                sb.append(memberIndent).append(member.prefix).append(member.constructor ? typeName : "").append(member.suffix);
+                if (member.hasBody) {
+                    sb.append(" {\n");
+                    if (member.code != null) {
+                        appendBytecode(sb, memberIndent + "    ", member.code);
+                    }
+                    if (member.constructor && superConstructor != null && !"()V".equals(superConstructor)
+                            && !"java/lang/Enum".equals(superName)) {
+                        sb.append(memberIndent).append("    super(").append(superArguments()).append(");\n");
+                    }
+                    sb.append(memberIndent).append("    throw new UnsupportedOperationException(\"Not decompiled\");\n")
+                            .append(memberIndent).append('}');
+                } else {
+                    sb.append(';');
+                }
+                sb.append('\n');
+            }
+            for (Map.Entry<String, Integer> memberClass : memberClasses.entrySet()) {
+                byte[] bytes = classes.get(memberClass.getKey());
+                if (bytes != null) {
+                    sb.append('\n');
+                    SkeletonGenerator.visit(bytes, withBytecode).renderType(sb, memberIndent, memberClass.getValue(), classes);
+                }
+            }
+            sb.append(indent).append("}\n");
+        }
+
+        private String typeHeader(String typeName, int typeAccess, boolean nested) {
+            StringBuilder sb = new StringBuilder(modifiers(typeAccess & ~Opcodes.ACC_SYNCHRONIZED, !nested));
+            List<String> implemented = new ArrayList<>();
+            if (interfaces != null) {
+                for (String iface : interfaces) {
+                    implemented.add(javaName(iface));
+                }
+            }
+            if ((typeAccess & Opcodes.ACC_ANNOTATION) != 0) {
+                sb.append("@interface ").append(typeName);
+            } else if (isInterface) {
+                sb.append("interface ").append(typeName);
+                if (!implemented.isEmpty()) {
+                    sb.append(" extends ").append(String.join(", ", implemented));
+                }
+            } else {
+                // 枚举也按普通类输出，其常量和 values() 依赖编译器生成的代码
+                sb.append("class ").append(typeName);
+                if (superName != null && !"java/lang/Object".equals(superName) && !"java/lang/Enum".equals(superName)) {
+                    sb.append(" extends ").append(javaName(superName));
+                }
+                if (!implemented.isEmpty()) {
+                    sb.append(" implements ").append(String.join(", ", implemented));
+                }
+            }
+            return sb.toString();
+        }
+
+        // 带类型转换的默认值，父类有多个同参数个数的构造器时也能确定调用哪一个
+        private String superArguments() {
+            List<String> arguments = new ArrayList<>();
+            for (Type argument : Type.getArgumentTypes(superConstructor)) {
+                arguments.add("(" + typeName(argument) + ") " + defaultValue(argument));
+            }
+            return String.join(", ", arguments);
+        }
+
+        // 字节码放在块注释里，注释结束符需要打断
+        private static void appendBytecode(StringBuilder sb, String indent, Textifier code) {
+            StringWriter text = new StringWriter();
+            try (PrintWriter writer = new PrintWriter(text)) {
+                code.print(writer);
+            }
+            sb.append(indent).append("/*\n");
+            for (String line : text.toString().split("\n")) {
+                if (!line.trim().isEmpty()) {
+                    sb.append(indent).append(" * ").append(line.trim().replace("*/", "* /")).append('\n');
+                }
+            }
+            sb.append(indent).append(" */\n");
+        }
+
+        private static String modifiers(int access, boolean type) {
+            StringBuilder sb = new StringBuilder();
+            if ((access & Opcodes.ACC_PUBLIC) != 0) {
+                sb.append("public ");
+            } else if ((access & Opcodes.ACC_PROTECTED) != 0) {
+                sb.append("protected ");
+            } else if ((access & Opcodes.ACC_PRIVATE) != 0) {
+                sb.append("private ");
+            }
+            if (!type && (access & Opcodes.ACC_STATIC) != 0) {
+                sb.append("static ");
+            }
+            if ((access & Opcodes.ACC_ABSTRACT) != 0 && (access & Opcodes.ACC_INTERFACE) == 0) {
+                sb.append("abstract ");
+            }
+            if ((access & Opcodes.ACC_FINAL) != 0 && (access & Opcodes.ACC_ENUM) == 0) {
+                sb.append("final ");
+            }
+            if (!type && (access & Opcodes.ACC_NATIVE) != 0) {
+                sb.append("native ");
+            }
+            return sb.toString();
+        }
+
+        private static String defaultValue(Type type) {
+            switch (type.getSort()) {
+                case Type.BOOLEAN:
+                    return "false";
+                case Type.CHAR:
+                    return "'\\0'";
+                case Type.BYTE:
+                case Type.SHORT:
+                case Type.INT:
+                    return "0";
+                case Type.LONG:
+                    return "0L";
+                case Type.FLOAT:
+                    return "0F";
+                case Type.DOUBLE:
+                    return "0D";
+                default:
+                    return "null";
+            }
+        }
+
+        private static String constant(Type type, Object value) {
+            switch (type.getSort()) {
+                case Type.BOOLEAN:
+                    return ((Integer) value) != 0 ? "true" : "false";
+                case Type.CHAR:
+                    return "(char) " + value;
+                case Type.BYTE:
+                    return "(byte) " + value;
+                case Type.SHORT:
+                    return "(short) " + value;
+                case Type.LONG:
+                    return value + "L";
+                case Type.FLOAT:
+                    float f = (Float) value;
+                    return Float.isNaN(f) ? "Float.NaN" : Float.isInfinite(f)
+                            ? (f > 0 ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY") : value + "F";
+                case Type.DOUBLE:
+                    double d = (Double) value;
+                    return Double.isNaN(d) ? "Double.NaN" : Double.isInfinite(d)
+                            ? (d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY") : value + "D";
+                case Type.OBJECT:
+                    return value instanceof String ? quote((String) value) : "null";
+                default:
+                    return String.valueOf(value);
+            }
+        }
+
+        private static String quote(String value) {
+            StringBuilder sb = new StringBuilder("\"");
+            for (char c : value.toCharArray()) {
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    sb.append("\\n");
+                } else if (c == '\r') {
+                    sb.append("\\r");
+                } else if (c == '\t') {
+                    sb.append("\\t");
+                } else if (c == '\b') {
+                    sb.append("\\b");
+                } else if (c == '\f') {
+                    sb.append("\\f");
+                } else if (c < 0x20) {
+                    // 控制字符不能用 Unicode 转义：编译器在词法分析之前就会还原它，换行符会把字符串截断
+                    sb.append(String.format("\\%03o", (int) c));
+                } else if (c > 0x7e) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.append('"').toString();
+        }
+
+        // 内部类名中的 $ 换成 .，与源码中的写法一致
+        private static String javaName(String internalName) {
+            return internalName.replace('/', '.').replace('$', '.');
+        }
+
+        private static String typeName(Type type) {
+            return type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY
+                    ? type.getClassName().replace('$', '.') : type.getClassName();
+        }
+    }
+
+    // 字段的 prefix 是完整声明；方法的声明为 prefix + （构造器时的类型名）+ suffix，类型名在输出时才确定
+    private static class Member {
+        final String prefix;
+        final boolean constructor;
+        final String suffix;
+        final boolean hasBody;
+        Textifier code;
+
+        Member(String prefix, boolean constructor, String suffix, boolean hasBody) {
+            this.prefix = prefix;
+            this.constructor = constructor;
+            this.suffix = suffix;
+            this.hasBody = hasBody;
+        }
+    }
+}
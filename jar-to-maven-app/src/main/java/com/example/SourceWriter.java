@@ -0,0 +1,210 @@
+package com.example;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// 反编译结果的写盘阶段：反编译线程只负责编码并放入有界队列，由单独的写线程批量落盘。
+// 队列满时 write 阻塞（背压），内存占用不超过 队列容量 × 单个源文件大小；
+// 已创建的包目录只记录在写线程内，同一目录不会重复 mkdir。
+// zip 模式下所有源码写入项目根目录下的单个 sources.zip，而不是成千上万个小文件
+public class SourceWriter implements Closeable {
+
+    public static final String ZIP_NAME = "sources.zip";
+
+    private static final int BATCH_SIZE = 64;
+    // 队列满时每隔这么久检查一次写线程是否还活着
+    private static final long OFFER_MILLIS = 100;
+    private static final Item POISON = new Item(null, null);
+
+    private final Path rootDir;
+    private final boolean zip;
+    private final BlockingQueue<Item> queue;
+    private final Thread thread;
+
+    // 以下字段只在写线程中访问
+    private final Set<Path> createdDirs = new HashSet<>();
+    private final Set<String> zipEntries = new HashSet<>();
+    private ZipOutputStream zipOut;
+
+    // 写线程中出现的第一个错误，包括非法路径等 RuntimeException
+    private volatile Throwable failure;
+    private volatile long writtenFiles;
+    private volatile long writtenBytes;
+    private boolean closed;
+
+    public SourceWriter(Path rootDir, boolean zip, int queueCapacity) throws IOException {
+        this.rootDir = rootDir;
+        this.zip = zip;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        if (zip) {
+            Files.createDirectories(rootDir);
+            zipOut = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(rootDir.resolve(ZIP_NAME)), 1 << 16));
+        }
+        this.thread = new Thread(this::run, "source-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // output.mode 为 zip 时写入 sources.zip，否则逐个写文件
+    public static SourceWriter fromConfig(Path rootDir, AppConfig config) throws IOException {
+        boolean zip = "zip".equalsIgnoreCase(config.get("output.mode", "files"));
+        return new SourceWriter(rootDir, zip, config.getInt("output.queueCapacity", 256));
+    }
+
+    public boolean isZip() {
+        return zip;
+    }
+
+    // file 必须位于 rootDir 之下；队列已满时阻塞，写线程出错后抛出该错误
+    public void write(Path file, String source) {
+        checkFailure();
+        // 编码在调用线程完成，写线程只做 IO
+        byte[] bytes = (source + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        try {
+            enqueue(new Item(file, bytes));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing " + file, e);
+        }
+        checkFailure();
+    }
+
+    public long getWrittenFiles() {
+        return writtenFiles;
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    // 实际执行 mkdir 的目录数，close 之后读取
+    public int getCreatedDirectories() {
+        return createdDirs.size();
+    }
+
+    // 等待队列写完并关闭 zip；写线程中出现的第一个错误在这里抛出
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            enqueue(POISON);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing sources to " + rootDir, e);
+        }
+        Throwable e = failure;
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e != null) {
+            throw new IOException("Failed to write decompiled source to " + rootDir, e);
+        }
+    }
+
+    // 队列满时等待，但不无限阻塞：写线程已经退出时不再入队，错误由调用方随后检查
+    private void enqueue(Item item) throws InterruptedException {
+        while (!queue.offer(item, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!thread.isAlive()) {
+                if (failure == null) {
+                    failure = new IOException("Source writer thread has stopped");
+                }
+                return;
+            }
+        }
+    }
+
+    private void checkFailure() {
+        Throwable e = failure;
+        if (e != null) {
+            throw new RuntimeException("Failed to write decompiled source", e);
+        }
+    }
+
+    private void run() {
+        List<Item> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (Item item : batch) {
+                    if (item == POISON) {
+                        finish();
+                        return;
+                    }
+                    // 出错后继续消费队列，避免阻塞中的反编译线程永远等待
+                    if (failure == null) {
+                        try {
+                            writeItem(item);
+                        } catch (Throwable t) {
+                            failure = t;
+                        }
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            failure = new IOException("Source writer interrupted", e);
+        }
+    }
+
+    private void writeItem(Item item) throws IOException {
+        if (zip) {
+            String name = rootDir.relativize(item.file).toString().replace('\\', '/');
+            if (!zipEntries.add(name)) {
+                System.err.println("Duplicate source skipped in " + ZIP_NAME + ": " + name);
+                return;
+            }
+            zipOut.putNextEntry(new ZipEntry(name));
+            zipOut.write(item.bytes);
+            zipOut.closeEntry();
+        } else {
+            Path dir = item.file.getParent();
+            if (dir != null && createdDirs.add(dir)) {
+                Files.createDirectories(dir);
+            }
+            try (OutputStream os = Files.newOutputStream(item.file)) {
+                os.write(item.bytes);
+            }
+        }
+        writtenFiles++;
+        writtenBytes += item.bytes.length;
+    }
+
+    private void finish() {
+        if (zipOut == null) {
+            return;
+        }
+        try {
+            zipOut.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private static class Item {
+        final Path file;
+        final byte[] bytes;
+
+        Item(Path file, byte[] bytes) {
+            this.file = file;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.*;
+
+public class ArchiveIndexTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testEntriesMatchJarFile() throws IOException {
+        byte[] nested = jar(Collections.singletonMap("a/B.class", bytes("nested class")), ZipEntry.DEFLATED);
+        Map<String, byte[]> content = new LinkedHashMap<>();
+        content.put("com/example/App.class", bytes(repeat("class body ", 500)));
+        content.put("static/index.html", bytes("<html></html>"));
+        content.put("empty.txt", new byte[0]);
+        content.put("BOOT-INF/lib/nested.jar", nested);
+        Path jarPath = temp.getRoot().toPath().resolve("mixed.jar");
+        Files.write(jarPath, jar(content, ZipEntry.STORED, "static/index.html", "BOOT-INF/lib/nested.jar"));
+
+        ArchiveIndex index = ArchiveIndex.open(jarPath);
+        try (JarFile jar = new JarFile(jarPath.toFile())) {
+            assertEquals(jar.size(), index.entries().size());
+            for (JarEntry entry : Collections.list(jar.entries())) {
+                ArchiveIndex.Entry indexed = index.getEntry(entry.getName());
+                assertNotNull(entry.getName(), indexed);
+                assertEquals(entry.getMethod(), indexed.getMethod());
+                byte[] expected;
+                try (InputStream is = jar.getInputStream(entry)) {
+                    expected = readAll(is);
+                }
+                assertArrayEquals(entry.getName(), expected, index.readBytes(indexed));
+                // 只读开头的字节，条目比前缀短时读到条目末尾为止
+                byte[] prefix = new byte[8];
+                int n = index.readPrefix(indexed, prefix);
+                assertEquals(entry.getName(), Math.min(8, expected.length), n);
+                assertArrayEquals(entry.getName(), Arrays.copyOf(expected, n), Arrays.copyOf(prefix, n));
+            }
+        }
+        assertEquals("1.0", index.getManifest().getMainAttributes().getValue("Manifest-Version"));
+
+        ArchiveIndex nestedIndex = index.openNested(index.getEntry("BOOT-INF/lib/nested.jar"));
+        assertArrayEquals(bytes("nested class"), nestedIndex.readBytes(nestedIndex.getEntry("a/B.class")));
+    }
+
+    @Test
+    public void testArchiveWithLaunchScriptPrefix() throws IOException {
+        byte[] jar = jar(Collections.singletonMap("a/B.class", bytes("payload")), ZipEntry.DEFLATED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(bytes("#!/bin/bash\nexec java -jar \"$0\" \"$@\"\n"));
+        out.write(jar);
+        Path jarPath = temp.getRoot().toPath().resolve("launcher.jar");
+        Files.write(jarPath, out.toByteArray());
+
+        ArchiveIndex index = ArchiveIndex.open(jarPath);
+        assertArrayEquals(bytes("payload"), index.readBytes(index.getEntry("a/B.class")));
+    }
+
+    @Test
+    public void testResourceExtractionOverwritesAndKeepsFirstDuplicate() throws IOException {
+        Random random = new Random(7);
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 40000; i++) {
+            large.append(random.nextInt(1000)).append(' ');
+        }
+        Map<String, byte[]> content = new LinkedHashMap<>();
+        content.put("static/app.js", bytes(large.toString()));
+        content.put("static/logo.bin", bytes(repeat("stored bytes ", 100)));
+        content.put("other/app.js", bytes("must not win"));
+        Path jarPath = temp.getRoot().toPath().resolve("resources.jar");
+        Files.write(jarPath, jar(content, ZipEntry.DEFLATED, "static/logo.bin"));
+        ArchiveIndex index = ArchiveIndex.open(jarPath);
+
+        Path out = temp.newFolder("out").toPath();
+        // 上次运行留下的文件直接覆盖
+        Files.createDirectories(out.resolve("static"));
+        Files.write(out.resolve("static/app.js"), bytes("stale"));
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(2);
+        DecompileMetrics metrics = new DecompileMetrics();
+        try {
+            ResourceExtractor extractor = new ResourceExtractor(executor, metrics);
+            extractor.extract(index, index.getEntry("static/app.js"), out.resolve("static/app.js"));
+            extractor.extract(index, index.getEntry("static/logo.bin"), out.resolve("static/logo.bin"));
+            extractor.extract(index, index.getEntry("other/app.js"), out.resolve("static/app.js"));
+            assertEquals(2, extractor.await());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertArrayEquals(content.get("static/app.js"), Files.readAllBytes(out.resolve("static/app.js")));
+        assertArrayEquals(content.get("static/logo.bin"), Files.readAllBytes(out.resolve("static/logo.bin")));
+        assertEquals(0, metrics.getFailures(DecompileMetrics.FAILURE_RESOURCE));
+    }
+
+    private static byte[] jar(Map<String, byte[]> content, int method, String... storedEntries) throws IOException {
+        Set<String> stored = new HashSet<>(Arrays.asList(storedEntries));
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JarOutputStream out = new JarOutputStream(bytes, manifest)) {
+            for (Map.Entry<String, byte[]> item : content.entrySet()) {
+                JarEntry entry = new JarEntry(item.getKey());
+                if (method == ZipEntry.STORED || stored.contains(item.getKey())) {
+                    CRC32 crc = new CRC32();
+                    crc.update(item.getValue());
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(item.getValue().length);
+                    entry.setCrc(crc.getValue());
+                }
+                out.putNextEntry(entry);
+                OutputStream os = out;
+                os.write(item.getValue());
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
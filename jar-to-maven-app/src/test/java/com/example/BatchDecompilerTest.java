@@ -0,0 +1,55 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BatchDecompilerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testDirectoryOfJarsSharesDecompiledClasses() throws IOException {
+        Path input = temp.newFolder("release").toPath();
+        copy(SyntheticJar.ofClasses(10).build(temp.newFolder().toPath(), "service-a.jar"), input);
+        // 与 service-a 内容相同的类，应全部命中共享缓存
+        copy(SyntheticJar.ofClasses(10).build(temp.newFolder().toPath(), "service-b.jar"), input.resolve("nested"));
+        copy(SyntheticJar.ofClasses(3).build(temp.newFolder().toPath(), "small.jar"), input);
+        Path output = temp.newFolder("out").toPath();
+
+        // 单线程保证 service-a 与 service-b 先后执行，命中数是确定的
+        Properties properties = new Properties();
+        properties.setProperty("batch.parallelism", "1");
+        BatchDecompiler batch = new BatchDecompiler(output.toString(), new AppConfig(properties));
+        List<Path> jars = BatchDecompiler.collectJars(Collections.singletonList(input.toString()));
+        assertEquals(3, jars.size());
+        assertEquals("small.jar", jars.get(2).getFileName().toString());
+
+        List<BatchDecompiler.Result> results = batch.decompileAll(jars);
+        assertEquals(3, results.size());
+        for (BatchDecompiler.Result result : results) {
+            assertNull(result.getError());
+        }
+        // service-b 全部命中；small 的 C0、C1 与 service-a 中的字节相同，同样命中
+        assertEquals(11, batch.getCache().getMisses());
+        assertEquals(12, batch.getCache().getHits());
+        assertArrayEquals(Files.readAllBytes(output.resolve("service-a/src/main/java/com/synthetic/p1/C5.java")),
+                Files.readAllBytes(output.resolve("service-b/src/main/java/com/synthetic/p1/C5.java")));
+
+        List<String> report = Files.readAllLines(output.resolve(BatchDecompiler.REPORT_NAME));
+        assertEquals(4, report.size());
+        assertTrue(report.get(1).endsWith(",\"OK\""));
+    }
+
+    private static void copy(Path jar, Path dir) throws IOException {
+        Files.copy(jar, Files.createDirectories(dir).resolve(jar.getFileName()));
+    }
+}
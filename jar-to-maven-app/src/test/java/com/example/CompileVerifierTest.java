@@ -0,0 +1,86 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class CompileVerifierTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testFailingClassesAreReportedAndCanBeReverifiedIncrementally() throws IOException {
+        Path root = temp.newFolder("src").toPath();
+        for (int i = 0; i < 12; i++) {
+            write(root, "com/app/p" + (i % 3) + "/Ok" + i + ".java", "package com.app.p" + (i % 3) + ";\n"
+                    + "public class Ok" + i + " { public com.app.p0.Ok0 next() { return null; } }\n");
+        }
+        // 反编译常见的错误：变量重复定义
+        Path broken = write(root, "com/app/p1/Broken.java", "package com.app.p1;\n"
+                + "public class Broken { void run() { int a = 1; int a = 2; } }\n");
+        // 只缺依赖
+        Path missing = write(root, "com/app/p2/Missing.java", "package com.app.p2;\n"
+                + "public class Missing { org.springframework.context.ApplicationContext context; }\n");
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            CompileVerifier verifier = new CompileVerifier(ToolProvider.getSystemJavaCompiler(), executor, 4,
+                    Collections.<Path>emptyList(), new DecompileMetrics());
+            CompileVerifier.Result result = verifier.verify(root);
+
+            assertEquals(14, result.getFileCount());
+            assertEquals(2, result.getFailedFiles().size());
+            assertEquals(Collections.singleton(broken.toAbsolutePath().normalize()), result.getBrokenFiles());
+            assertEquals("com/app/p1/Broken", result.toClassPath(broken.toAbsolutePath().normalize()));
+            assertFalse(result.getErrors(missing.toAbsolutePath().normalize()).isEmpty());
+
+            // 修好之后只重新校验这一个文件
+            write(root, "com/app/p1/Broken.java", "package com.app.p1;\n"
+                    + "public class Broken { void run() { int a = 1; int b = a; } }\n");
+            result = verifier.verify(root, result.getBrokenFiles());
+            assertEquals(1, result.getFileCount());
+            assertTrue(result.toString(), result.getFailedFiles().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSourcesAreCheckedAtTheGeneratedJavaLevel() throws IOException {
+        Path root = temp.newFolder("level").toPath();
+        // var 从 Java 10 起才是局部变量类型
+        Path file = write(root, "com/app/Local.java", "package com.app;\n"
+                + "public class Local { void run() { var a = 1; } }\n");
+        CompileVerifier verifier = new CompileVerifier(ToolProvider.getSystemJavaCompiler(), null, 1,
+                Collections.<Path>emptyList(), new DecompileMetrics());
+
+        verifier.setJavaLevel("1.8");
+        assertEquals(Collections.singleton(file.toAbsolutePath().normalize()), verifier.verify(root).getFailedFiles());
+
+        verifier.setJavaLevel("11");
+        assertTrue(verifier.verify(root).getFailedFiles().isEmpty());
+
+        // 宿主 JDK 不支持的级别退回默认级别
+        verifier.setJavaLevel("999");
+        assertTrue(verifier.levelOptions().isEmpty());
+    }
+
+    private static Path write(Path root, String relative, String source) throws IOException {
+        Path file = root.resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class DecompileCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testUnchangedClassesSkipCfrOnSecondRun() throws IOException {
+        Path jarPath = SyntheticJar.ofClasses(10).build(temp.newFolder("jar").toPath(), "app.jar");
+        Path cacheDir = temp.newFolder("cache").toPath();
+
+        DecompileCache coldCache = new DecompileCache(cacheDir, 1024 * 1024);
+        List<String> cold = decompile(jarPath, new DecompileEngine(DecompileEngine.defaultOptions(), coldCache));
+        assertEquals(0, coldCache.getHits());
+        assertEquals(10, coldCache.getMisses());
+
+        // 新的缓存实例从磁盘恢复索引，模拟下一次运行
+        DecompileCache warmCache = new DecompileCache(cacheDir, 1024 * 1024);
+        List<String> warm = decompile(jarPath, new DecompileEngine(DecompileEngine.defaultOptions(), warmCache));
+        assertEquals(10, warmCache.getHits());
+        assertEquals(0, warmCache.getMisses());
+        assertEquals(cold, warm);
+
+        // 选项不同则键不同
+        Map<String, String> options = DecompileEngine.defaultOptions();
+        options.put("decodelambdas", "false");
+        DecompileCache otherOptions = new DecompileCache(cacheDir, 1024 * 1024);
+        decompile(jarPath, new DecompileEngine(options, otherOptions));
+        assertEquals(0, otherOptions.getHits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() throws IOException {
+        DecompileCache cache = new DecompileCache(temp.newFolder("lru").toPath(), 250);
+        String first = key("first");
+        String second = key("second");
+        String third = key("third");
+        cache.put(first, repeat('a', 100));
+        cache.put(second, repeat('b', 100));
+        assertNotNull(cache.get(first));
+        cache.put(third, repeat('c', 100));
+
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+        assertEquals(200, cache.getTotalBytes());
+    }
+
+    @Test
+    public void testTemporaryFilesDoNotLeak() throws IOException {
+        Path cacheDir = temp.newFolder("tmp").toPath();
+        Path shard = Files.createDirectories(cacheDir.resolve("ab"));
+        Path stale = Files.write(shard.resolve("stale.tmp"), new byte[10]);
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - 2 * 60 * 60 * 1000L));
+        Path fresh = Files.write(shard.resolve("fresh.tmp"), new byte[10]);
+
+        DecompileCache cache = new DecompileCache(cacheDir, 1024);
+        assertFalse(Files.exists(stale));
+        // 较新的临时文件可能属于正在写入的其他进程
+        assertTrue(Files.exists(fresh));
+        Files.delete(fresh);
+
+        // 目标位置是非空目录，替换失败后临时文件也要删掉
+        String blocked = key("blocked");
+        Path target = cacheDir.resolve(blocked.substring(0, 2)).resolve(blocked + ".java");
+        Files.createDirectories(target);
+        Files.write(target.resolve("child"), new byte[1]);
+        cache.put(blocked, "class Blocked {}");
+
+        try (Stream<Path> walk = Files.walk(cacheDir)) {
+            assertFalse(walk.anyMatch(p -> p.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    private static List<String> decompile(Path jarPath, DecompileEngine engine) throws IOException {
+        ArchiveIndex index = ArchiveIndex.open(jarPath);
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classPaths.add(entry.getName());
+            }
+        }
+        List<String> outputs = Collections.synchronizedList(new ArrayList<>());
+        engine.decompile(new JarClassFileSource(index), classPaths, DecompileEngineTest.collectingSink(outputs));
+        Collections.sort(outputs);
+        return outputs;
+    }
+
+    private static String key(String name) {
+        return DecompileCache.key(Collections.emptyMap(), Collections.singletonMap(name, new byte[0]));
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
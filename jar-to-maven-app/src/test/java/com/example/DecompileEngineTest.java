@@ -0,0 +1,359 @@
+package com.example;
+
+import org.benf.cfr.reader.api.ClassFileSource;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DecompileEngineTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testEachClassIsAnalysedOnce() throws IOException {
+        int classCount = 20;
+        Path jarPath = SyntheticJar.ofClasses(classCount)
+                .withEntryPrefix("BOOT-INF/classes/")
+                .build(temp.getRoot().toPath(), "app.jar");
+
+        Map<String, AtomicInteger> reads = new ConcurrentHashMap<>();
+        List<String> outputs = Collections.synchronizedList(new ArrayList<>());
+        ArchiveIndex index = ArchiveIndex.open(jarPath);
+        JarClassFileSource source = new JarClassFileSource(index) {
+            @Override
+            public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+                Pair<byte[], String> content = super.getClassFileContent(path);
+                if (content != null) {
+                    reads.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+                }
+                return content;
+            }
+        };
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classPaths.add(JarClassFileSource.toClassPath(entry.getName()));
+            }
+        }
+        new DecompileEngine().decompile(source, classPaths, collectingSink(outputs));
+
+        // 外部类与内部类都只被读取、分析一次
+        assertEquals(classCount * 2, reads.size());
+        for (Map.Entry<String, AtomicInteger> entry : reads.entrySet()) {
+            assertEquals("analysed more than once: " + entry.getKey(), 1, entry.getValue().get());
+        }
+        // 每个外部类恰好输出一次，内部类随外部类一起输出
+        assertEquals(classCount, outputs.size());
+        for (int i = 0; i < classCount; i++) {
+            String className = "C" + i;
+            assertEquals(1, outputs.stream().filter(s -> s.contains("public class " + className + " ")).count());
+        }
+    }
+
+    @Test
+    public void testRoutingReadsEachClassOnce() throws IOException {
+        int classCount = 12;
+        ArchiveIndex index = ArchiveIndex.open(SyntheticJar.ofClasses(classCount).build(temp.getRoot().toPath(), "app.jar"));
+        Map<String, AtomicInteger> reads = new ConcurrentHashMap<>();
+        JarClassFileSource source = new JarClassFileSource(index) {
+            @Override
+            public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+                Pair<byte[], String> content = super.getClassFileContent(path);
+                if (content != null) {
+                    reads.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+                }
+                return content;
+            }
+        };
+        List<String> classPaths = new ArrayList<>();
+        long classBytes = 0;
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classPaths.add(entry.getName());
+                classBytes += entry.getSize();
+            }
+        }
+        DecompileMetrics metrics = new DecompileMetrics();
+        List<String> outputs = Collections.synchronizedList(new ArrayList<>());
+        // C0 路由到快速后端，其余交给 CFR；路由时读出的字节直接交给后端
+        new DecompileEngine(DecompileEngine.defaultOptions(), null, metrics, null, new SkeletonBackend(metrics, false),
+                new RoutingPolicy(0, Collections.<String>emptyList(), Collections.singletonList(".*\\.C0")), true)
+                .decompile(source, classPaths, collectingSink(outputs));
+
+        assertEquals(classCount, outputs.size());
+        assertEquals(classCount * 2, reads.size());
+        for (Map.Entry<String, AtomicInteger> entry : reads.entrySet()) {
+            assertEquals("read more than once: " + entry.getKey(), 1, entry.getValue().get());
+        }
+        assertEquals(classBytes, metrics.getBytesRead());
+    }
+
+    @Test(timeout = 60000)
+    public void testStalledClassFallsBackToSkeleton() throws IOException {
+        Path jarPath = SyntheticJar.ofClasses(4)
+                .addSource("com.slow.Base", "package com.slow;\npublic class Base { public int value() { return 1; } }\n")
+                .addSource("com.slow.Slow", "package com.slow;\npublic class Slow extends Base {\n"
+                        + "    public String name;\n"
+                        + "    public int twice(int x) throws java.io.IOException { return value() * x * 2; }\n}\n")
+                .build(temp.getRoot().toPath(), "slow.jar");
+        ArchiveIndex index = ArchiveIndex.open(jarPath);
+        // 读取 Base 时卡住，模拟分析 Slow 时 CFR 长时间不返回
+        JarClassFileSource source = new JarClassFileSource(index) {
+            @Override
+            public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+                if (path.equals("com/slow/Base.class")) {
+                    try {
+                        Thread.sleep(30000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getClassFileContent(path);
+            }
+        };
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class") && !entry.getName().endsWith("Base.class")) {
+                classPaths.add(entry.getName());
+            }
+        }
+        DecompileMetrics metrics = new DecompileMetrics();
+        List<String> outputs = Collections.synchronizedList(new ArrayList<>());
+        new DecompileEngine(DecompileEngine.defaultOptions(), null, metrics, new DecompileGuard(300, 0))
+                .decompile(source, classPaths, collectingSink(outputs));
+
+        // 其余的类照常输出，Slow 只剩签名
+        assertEquals(5, outputs.size());
+        String skeleton = outputs.stream().filter(s -> s.contains("class Slow")).findFirst().orElse("");
+        assertTrue(skeleton, skeleton.contains("public class Slow extends com.slow.Base {"));
+        assertTrue(skeleton, skeleton.contains("public int twice(int arg0) throws java.io.IOException {"));
+        assertTrue(skeleton, skeleton.contains("public String name;") || skeleton.contains("public java.lang.String name;"));
+        assertEquals(1, metrics.getFailures(DecompileMetrics.FAILURE_TIMEOUT));
+        assertEquals(1, metrics.getFailures(DecompileMetrics.FAILURE_SKELETON));
+    }
+
+    @Test(timeout = 60000)
+    public void testRetryIsSkippedWhileAbandonedRunIsAlive() throws Exception {
+        Path jarPath = SyntheticJar.ofClasses(4)
+                .addSource("com.slow.Base", "package com.slow;\npublic class Base { public int value() { return 1; } }\n")
+                .addSource("com.slow.Slow", "package com.slow;\npublic class Slow extends Base {\n"
+                        + "    public int twice(int x) { return value() * x * 2; }\n}\n")
+                .build(temp.getRoot().toPath(), "stuck.jar");
+        ArchiveIndex index = ArchiveIndex.open(jarPath);
+        // 读取 Base 时卡住并忽略中断，模拟卡在单个方法里、到不了检查点的 CFR
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger baseReads = new AtomicInteger();
+        JarClassFileSource source = new JarClassFileSource(index) {
+            @Override
+            public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+                if (path.equals("com/slow/Base.class")) {
+                    baseReads.incrementAndGet();
+                    while (release.getCount() > 0) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            // 忽略中断
+                        }
+                    }
+                }
+                return super.getClassFileContent(path);
+            }
+        };
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class") && !entry.getName().endsWith("Base.class")) {
+                classPaths.add(entry.getName());
+            }
+        }
+        DecompileMetrics metrics = new DecompileMetrics();
+        List<String> outputs = Collections.synchronizedList(new ArrayList<>());
+        try {
+            new DecompileEngine(DecompileEngine.defaultOptions(), null, metrics, new DecompileGuard(300, 0))
+                    .decompile(source, classPaths, collectingSink(outputs));
+
+            // 被放弃的运行还在，不用简化选项重试，Slow 直接输出存根
+            assertEquals(1, DecompileGuard.getAbandonedRuns());
+            assertEquals(1, baseReads.get());
+            assertEquals(5, outputs.size());
+            assertTrue(outputs.stream().anyMatch(s -> s.contains("public class Slow extends com.slow.Base {")));
+            assertEquals(1, metrics.getFailures(DecompileMetrics.FAILURE_TIMEOUT));
+            assertEquals(1, metrics.getFailures(DecompileMetrics.FAILURE_SKELETON));
+        } finally {
+            release.countDown();
+        }
+        assertTrue(DecompileGuard.awaitAbandonedRuns(30000));
+        assertEquals(0, DecompileGuard.getAbandonedRuns());
+    }
+
+    @Test
+    public void testUnparseableMemberDoesNotHideGeneratedSupertype() {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "com/gen/Messages$Person", null, "com/gen/Base", null);
+        writer.visitEnd();
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put("com/gen/Messages.class", new byte[]{1, 2, 3});
+        classes.put("com/gen/Messages$Person.class", writer.toByteArray());
+
+        RoutingPolicy policy = new RoutingPolicy(0, Collections.singletonList("com.gen.Base"), Collections.<String>emptyList());
+        assertTrue(policy.preferFast("com/gen/Messages", classes));
+        classes.remove("com/gen/Messages$Person.class");
+        assertFalse(policy.preferFast("com/gen/Messages", classes));
+    }
+
+    @Test
+    public void testGeneratedClassesAreRoutedToSkeletonBackend() throws IOException {
+        Path jarPath = SyntheticJar.ofClasses(4)
+                .addSource("com.gen.Base", "package com.gen;\npublic abstract class Base { public abstract int id(); }\n")
+                .addSource("com.gen.Messages", "package com.gen;\npublic final class Messages {\n"
+                        + "    public static Person.Builder builder() { return new Person.Builder(); }\n"
+                        + "    public static final String SEPARATOR = \"a\\nb\\r\\t\\u0001\\u00e9\\\"\\\\\";\n"
+                        + "    public static final class Person extends Base {\n"
+                        + "        public int id() { return 42; }\n"
+                        + "        public static class Builder { public Person build() { return new Person(); } }\n"
+                        + "    }\n"
+                        + "    public interface Listener {\n"
+                        + "        void on(Person person);\n"
+                        + "        default void reset() { log(); }\n"
+                        + "        private void log() { }\n"
+                        + "        private static void trace() { }\n"
+                        + "    }\n"
+                        + "}\n")
+                .build(temp.getRoot().toPath(), "gen.jar");
+        ArchiveIndex index = ArchiveIndex.open(jarPath);
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classPaths.add(entry.getName());
+            }
+        }
+        DecompileMetrics metrics = new DecompileMetrics();
+        Map<String, String> outputs = new ConcurrentHashMap<>();
+        new DecompileEngine(DecompileEngine.defaultOptions(), null, metrics, null, new SkeletonBackend(metrics, true),
+                new RoutingPolicy(0, Collections.singletonList("com.gen.Base"), Collections.<String>emptyList()), true)
+                .decompile(new JarClassFileSource(index), classPaths, decompiledSink(outputs));
+
+        // 内部类继承了生成代码的基类，整个外部类走快速后端，成员类嵌套输出，方法体前是字节码
+        String messages = outputs.get("com/gen/Messages");
+        assertTrue(messages, messages.contains("skeleton backend"));
+        assertTrue(messages, messages.contains("public static final class Person extends com.gen.Base {"));
+        assertTrue(messages, messages.contains("public static class Builder {"));
+        assertTrue(messages, messages.contains("public com.gen.Messages.Person build() {"));
+        assertTrue(messages, messages.contains("BIPUSH 42"));
+        assertTrue(messages, messages.contains("default void reset() {"));
+        assertTrue(messages, messages.contains("private void log() {"));
+        assertTrue(messages, messages.contains("private static void trace() {"));
+        assertTrue(messages, messages.contains("SEPARATOR = \"a\\nb\\r\\t\\001\\u00e9\\\"\\\\\";"));
+        // 其余的类仍由 CFR 反编译
+        assertFalse(outputs.get("com/gen/Base").contains("skeleton backend"));
+        assertTrue(outputs.get("com/synthetic/p0/C0").contains("return this.items.size();"));
+        assertEquals(6, outputs.size());
+
+        // 存根可以和其余源码一起编译
+        Path root = temp.newFolder("decompiled").toPath();
+        for (Map.Entry<String, String> output : outputs.entrySet()) {
+            Path file = root.resolve(output.getKey() + ".java");
+            Files.createDirectories(file.getParent());
+            Files.write(file, output.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+        CompileVerifier.Result result = new CompileVerifier(ToolProvider.getSystemJavaCompiler(), null, 1,
+                Collections.<Path>emptyList(), metrics).verify(root);
+        assertTrue(result.getFailedFiles().toString(), result.getFailedFiles().isEmpty());
+    }
+
+    @Test
+    public void testClassesWithoutOutputFallBackToTheOtherBackend() throws IOException {
+        int classCount = 6;
+        ArchiveIndex index = ArchiveIndex.open(SyntheticJar.ofClasses(classCount).build(temp.getRoot().toPath(), "app.jar"));
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classPaths.add(entry.getName());
+            }
+        }
+        // 快速后端只处理 C0，其余的类没有输出，也不抛异常
+        DecompilerBackend partial = new DecompilerBackend() {
+            @Override
+            public String getName() {
+                return "partial";
+            }
+
+            @Override
+            public void decompile(ClassFileSource source, List<String> paths, OutputSinkFactory outputSinkFactory) {
+                for (String outerPath : DecompileEngine.groupByOuterClass(paths).keySet()) {
+                    if (outerPath.endsWith("/C0")) {
+                        DecompileEngine.writeJava(outputSinkFactory, new Source(outerPath, "// partial C0", true));
+                    }
+                }
+            }
+        };
+        DecompileMetrics metrics = new DecompileMetrics();
+        Map<String, String> outputs = new ConcurrentHashMap<>();
+        new DecompileEngine(DecompileEngine.defaultOptions(), null, metrics, null, partial,
+                new RoutingPolicy(0, Collections.<String>emptyList(), Collections.singletonList(".*")), true)
+                .decompile(new JarClassFileSource(index), classPaths, decompiledSink(outputs));
+
+        assertEquals(classCount, outputs.size());
+        assertEquals("// partial C0", outputs.get("com/synthetic/p0/C0"));
+        assertTrue(outputs.get("com/synthetic/p1/C1").contains("public class C1 "));
+        assertEquals(classCount - 1, metrics.getFailures(DecompileMetrics.FAILURE_FALLBACK));
+    }
+
+    // 按外部类路径收集输出
+    static OutputSinkFactory decompiledSink(Map<String, String> outputs) {
+        return new OutputSinkFactory() {
+            @Override
+            public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> collection) {
+                return sinkType == SinkType.JAVA ? Collections.singletonList(SinkClass.DECOMPILED)
+                        : Collections.singletonList(SinkClass.STRING);
+            }
+
+            @Override
+            public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+                return t -> {
+                    if (sinkType == SinkType.JAVA) {
+                        SinkReturns.Decompiled decompiled = (SinkReturns.Decompiled) t;
+                        String pkg = decompiled.getPackageName().replace('.', '/');
+                        assertNull(outputs.put(pkg.isEmpty() ? decompiled.getClassName()
+                                : pkg + "/" + decompiled.getClassName(), decompiled.getJava()));
+                    }
+                };
+            }
+        };
+    }
+
+    static OutputSinkFactory collectingSink(List<String> outputs) {
+        return new OutputSinkFactory() {
+            @Override
+            public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> collection) {
+                return Collections.singletonList(SinkClass.STRING);
+            }
+
+            @Override
+            public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+                return t -> {
+                    if (sinkType == SinkType.JAVA) {
+                        outputs.add((String) t);
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DecompileMetricsTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testDecompileRecordsPhasesAndExports() throws IOException {
+        Path jarPath = SyntheticJar.ofClasses(8)
+                .addResource("application.yml", "server:\n  port: 8080\n")
+                .build(temp.newFolder("jar").toPath(), "metrics-app.jar");
+        Path metricsDir = temp.getRoot().toPath().resolve("metrics");
+        Properties properties = new Properties();
+        properties.setProperty("decompile.excludes", "META-INF");
+        properties.setProperty("metrics.dir", metricsDir.toString());
+        properties.setProperty("metrics.slowestClasses", "3");
+        JarDecompiler decompiler = new JarDecompiler(temp.newFolder("out").toString(), new AppConfig(properties));
+        decompiler.decompileJar(jarPath.toString());
+
+        DecompileMetrics metrics = decompiler.getMetrics();
+        // 内部类随外部类一起计时
+        assertEquals(8, metrics.getClassCount());
+        assertEquals(3, metrics.getSlowestClasses().size());
+        assertTrue(metrics.getSlowestClasses().get(0).getNanos() >= metrics.getSlowestClasses().get(2).getNanos());
+        assertTrue(metrics.getPhaseNanos(DecompileMetrics.PHASE_DECOMPILE) > 0);
+        assertTrue(metrics.getPhaseNanos(DecompileMetrics.PHASE_DEPENDENCIES) > 0);
+        assertTrue(metrics.getPhaseNanos(DecompileMetrics.PHASE_POM_WRITE) > 0);
+        assertTrue(metrics.getBytesRead() > 0);
+        assertTrue(metrics.getBytesWritten() > 0);
+        assertEquals(0, metrics.getFailures(DecompileMetrics.FAILURE_CLASS));
+
+        String json = new String(Files.readAllBytes(metricsDir.resolve("metrics-app-metrics.json")), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"decompile\": "));
+        assertTrue(json.contains("\"count\": 8"));
+        List<String> prom = Files.readAllLines(metricsDir.resolve("metrics-app-metrics.prom"));
+        assertTrue(prom.contains("jar2maven_class_decompile_seconds_bucket{le=\"+Inf\"} 8"));
+        assertTrue(prom.contains("jar2maven_class_decompile_seconds_count 8"));
+    }
+
+    @Test
+    public void testHistogramBucketsAreCumulative() {
+        DecompileMetrics metrics = new DecompileMetrics(2);
+        metrics.recordClass("a.Fast", 500_000L);
+        metrics.recordClass("a.Medium", 7_000_000L);
+        metrics.recordClass("a.Slow", 2_000_000_000L);
+        metrics.recordFailure(DecompileMetrics.FAILURE_POM);
+
+        List<String> lines = Arrays.asList(metrics.toPrometheus().split("\n"));
+        assertTrue(lines.contains("jar2maven_class_decompile_seconds_bucket{le=\"0.001000\"} 1"));
+        assertTrue(lines.contains("jar2maven_class_decompile_seconds_bucket{le=\"0.010000\"} 2"));
+        assertTrue(lines.contains("jar2maven_class_decompile_seconds_bucket{le=\"2.500000\"} 3"));
+        assertTrue(lines.contains("jar2maven_failures_total{kind=\"pom\"} 1"));
+        assertEquals("a.Slow", metrics.getSlowestClasses().get(0).getClassName());
+        assertEquals("a.Medium", metrics.getSlowestClasses().get(1).getClassName());
+    }
+
+    @Test
+    public void testOverlappingTimersCountWallTimeOnce() throws InterruptedException {
+        DecompileMetrics metrics = new DecompileMetrics();
+        DecompileMetrics.Timer first = metrics.time(DecompileMetrics.PHASE_DECOMPILE);
+        DecompileMetrics.Timer second = metrics.time(DecompileMetrics.PHASE_DECOMPILE);
+        Thread.sleep(50);
+        first.close();
+        second.close();
+
+        long wall = metrics.getPhaseNanos(DecompileMetrics.PHASE_DECOMPILE);
+        long thread = metrics.getPhaseThreadNanos(DecompileMetrics.PHASE_DECOMPILE);
+        assertTrue(String.valueOf(wall), wall >= 50_000_000L);
+        // 两个计时器重叠，线程时间之和约为墙钟时间的两倍
+        assertTrue(wall + " " + thread, thread >= 2 * wall - 5_000_000L);
+        List<String> lines = Arrays.asList(metrics.toPrometheus().split("\n"));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("jar2maven_phase_seconds_total{phase=\"decompile\"} ")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("jar2maven_phase_thread_seconds_total{phase=\"decompile\"} ")));
+    }
+
+    @Test
+    public void testBucketUpperBoundsAreInclusive() {
+        DecompileMetrics metrics = new DecompileMetrics(0);
+        metrics.recordClass("a.One", 1_000_000L);
+        metrics.recordClass("a.Two", 2_000_000L);
+        metrics.recordClass("a.JustOverTwo", 2_000_001L);
+
+        List<String> lines = Arrays.asList(metrics.toPrometheus().split("\n"));
+        assertTrue(lines.contains("jar2maven_class_decompile_seconds_bucket{le=\"0.001000\"} 1"));
+        assertTrue(lines.contains("jar2maven_class_decompile_seconds_bucket{le=\"0.002000\"} 2"));
+        assertTrue(lines.contains("jar2maven_class_decompile_seconds_bucket{le=\"0.005000\"} 3"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class DecompileServerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testSourceIsCachedAndNeighboursArePrefetched() throws Exception {
+        ArchiveIndex index = ArchiveIndex.open(SyntheticJar.ofClasses(12)
+                .withEntryPrefix("BOOT-INF/classes/")
+                .build(temp.getRoot().toPath(), "app.jar"));
+        DecompileServer server = new DecompileServer(index, new DecompileEngine(), 1024L * 1024L, 8);
+        try {
+            assertEquals(12, server.getClassNames().size());
+            assertTrue(server.getClassNames().contains("com.synthetic.p0.C4"));
+
+            // 内部类名返回外部类的源码
+            String java = server.getSource("com.synthetic.p0.C0$Inner");
+            assertTrue(java, java.contains("public class C0 "));
+            assertSame(java, server.getSource("com/synthetic/p0/C0"));
+            assertNull(server.getSource("com.synthetic.p0.Missing"));
+
+            // 同包中相邻的 C4、C8 在后台预取，其他包的类不预取
+            long deadline = System.currentTimeMillis() + 30000;
+            while (server.getCache().size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(3, server.getCache().size());
+            // 预取时检查缓存不计入未命中，只有第一次请求 C0 是未命中
+            assertEquals(1, server.getCache().getMisses());
+            assertEquals(1, server.getCache().getHits());
+            assertTrue(server.getSource("com.synthetic.p0.C8").contains("public class C8 "));
+
+            server.start(0, 2);
+            String base = "http://127.0.0.1:" + server.getPort();
+            assertTrue(get(base + "/source?class=com.synthetic.p0.C4", 200).contains("public class C4 "));
+            get(base + "/source?class=com.synthetic.Missing", 404);
+            assertTrue(get(base + "/classes", 200).contains("com.synthetic.p3.C11"));
+            assertTrue(get(base + "/metrics", 200).contains("jar2maven_"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsedByBytes() {
+        DecompileServer.SourceCache cache = new DecompileServer.SourceCache(100);
+        cache.put("a", repeat(20));
+        cache.put("b", repeat(20));
+        cache.get("a");
+        // containsKey 不改变访问顺序，b 仍是最久未访问的
+        assertTrue(cache.containsKey("b"));
+        assertFalse(cache.containsKey("x"));
+        assertEquals(1, cache.getHits());
+        assertEquals(0, cache.getMisses());
+        cache.put("c", repeat(20));
+
+        // 每个 40 字节，放入 c 后超出 100 字节，淘汰最久未访问的 b
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(80, cache.getBytes());
+        assertEquals(1, cache.getEvictions());
+
+        // 单个超过上限的条目仍然保留
+        cache.put("d", repeat(100));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("d"));
+    }
+
+    private static String repeat(int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append('x');
+        }
+        return sb.toString();
+    }
+
+    private static String get(String url, int expectedStatus) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            assertEquals(url, expectedStatus, connection.getResponseCode());
+            InputStream in = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            in.close();
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DependencyResolverTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testLongestPackagePrefixWins() {
+        DependencyResolver resolver = resolver(
+                "# comment\n"
+                        + "org.springframework=org.springframework:spring-core:5.3.27\n"
+                        + "org.springframework.web=org.springframework:spring-web:5.3.27\r\n"
+                        + "org.springframework.web.servlet=org.springframework:spring-webmvc:5.3.27\n"
+                        + "org.slf4j=org.slf4j:slf4j-api\n");
+
+        assertEquals("org.springframework:spring-webmvc:5.3.27",
+                resolver.resolve("org.springframework.web.servlet.config").toString());
+        assertEquals("org.springframework:spring-web:5.3.27", resolver.resolve("org.springframework.web.client").toString());
+        assertEquals("org.springframework:spring-core:5.3.27", resolver.resolve("org.springframework.util").toString());
+        assertEquals("org.slf4j:slf4j-api", resolver.resolve("org.slf4j").toString());
+        // 只在包名分段处匹配
+        assertNull(resolver.resolve("org.slf4jx"));
+        assertNull(resolver.resolve("org"));
+        assertNull(resolver.resolve("com.unknown"));
+    }
+
+    @Test
+    public void testUnsortedUserIndexOverridesBundled() throws IOException {
+        Path userIndex = temp.newFile("index.txt").toPath();
+        Files.write(userIndex, ("org.slf4j=org.slf4j:slf4j-api:2.0.7\n"
+                + "com.acme=com.acme:acme-core:1.0\n").getBytes(StandardCharsets.UTF_8));
+        Properties properties = new Properties();
+        properties.setProperty("dependency.index", userIndex.toString());
+        DependencyResolver resolver = DependencyResolver.fromConfig(new AppConfig(properties));
+
+        assertEquals("org.slf4j:slf4j-api:2.0.7", resolver.resolve("org.slf4j.spi").toString());
+        assertEquals("com.acme:acme-core:1.0", resolver.resolve("com.acme.util").toString());
+        // 用户索引中没有的包仍由内置索引解析
+        assertEquals("org.apache.commons", resolver.resolve("org.apache.commons.lang3.builder").getGroupId());
+    }
+
+    @Test
+    public void testLargeIndexLookup() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            lines.add("com.vendor" + i + ".lib=com.vendor" + i + ":lib:" + i);
+        }
+        // 乱序写入，加载时排序
+        Collections.shuffle(lines, new Random(1));
+        DependencyResolver resolver = resolver(String.join("\n", lines));
+
+        assertEquals(50000, resolver.size());
+        for (int i = 0; i < 50000; i += 997) {
+            assertEquals("com.vendor" + i + ":lib:" + i, resolver.resolve("com.vendor" + i + ".lib.internal").toString());
+        }
+        assertNull(resolver.resolve("com.vendor50000.lib"));
+    }
+
+    private static DependencyResolver resolver(String index) {
+        return new DependencyResolver(Collections.singletonList(
+                DependencyResolver.PackageIndex.of("test", index.getBytes(StandardCharsets.UTF_8))));
+    }
+}
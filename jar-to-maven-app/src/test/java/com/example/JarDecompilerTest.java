@@ -1,11 +1,32 @@
 package com.example;
 
 
+import org.apache.commons.lang3.StringUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.*;
 
 
 public class JarDecompilerTest {
 
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
     @Test
     public void testDecompileJar() {
         String jarFilePath = "D:\\文档库\\Demo\\lib\\uds-api-1.0.0.jar";
@@ -13,4 +34,184 @@ public class JarDecompilerTest {
         decompiler.decompileJar(jarFilePath);
         
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParallelOutputIsIdenticalToSequential() throws IOException {
+        Path jarPath = SyntheticJar.ofClasses(40)
+                .withEntryPrefix("BOOT-INF/classes/")
+                .addResource("BOOT-INF/classes/application.yml", "server:\n  port: 8080\n")
+                .build(temp.newFolder("jar").toPath(), "app.jar");
+
+        Path sequential = decompile(jarPath, 1);
+        Path parallel = decompile(jarPath, 4);
+
+        // 只比较源码与资源，pom.xml 的依赖顺序与反编译模式无关
+        Map<String, byte[]> expected = readTree(sequential.resolve("src"));
+        Map<String, byte[]> actual = readTree(parallel.resolve("src"));
+        assertEquals(expected.keySet(), actual.keySet());
+        assertTrue(expected.keySet().stream().filter(name -> name.endsWith(".java")).count() >= 40);
+        for (String name : expected.keySet()) {
+            assertArrayEquals(name, expected.get(name), actual.get(name));
+        }
+    }
+
+    @Test
+    public void testParallelOutputIsIdenticalToSequentialOnRealJar() throws IOException {
+        // 真实 JAR 的字节码：lambda、匿名类和内部类、泛型桥方法，反编译时要跨类推断类型
+        SyntheticJar jar = new SyntheticJar()
+                .addSource("com.app.Bridges", "package com.app;\n"
+                        + "public class Bridges implements Comparable<Bridges>, java.util.function.Supplier<String> {\n"
+                        + "    public int compareTo(Bridges other) { return 0; }\n"
+                        + "    public String get() { return java.util.stream.Stream.of(\"a\").map(s -> s + this).findFirst().get(); }\n"
+                        + "    public Runnable task() { return new Runnable() { public void run() { get(); } }; }\n"
+                        + "}\n");
+        List<String> packages = Arrays.asList("org/apache/commons/lang3/function/", "org/apache/commons/lang3/concurrent/",
+                "org/apache/commons/lang3/tuple/", "org/apache/commons/lang3/stream/", "org/apache/commons/lang3/builder/");
+        Path lang3 = Paths.get(URI.create(StringUtils.class.getProtectionDomain().getCodeSource().getLocation().toString()));
+        try (ZipFile zip = new ZipFile(lang3.toFile())) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                if (entry.getName().endsWith(".class") && packages.stream().anyMatch(entry.getName()::startsWith)) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        jar.addResource(entry.getName(), IOUtil.toByteArray(in));
+                    }
+                }
+            }
+        }
+        Path jarPath = jar.build(temp.newFolder("jar").toPath(), "app.jar");
+
+        Map<String, byte[]> expected = readTree(decompile(jarPath, 1).resolve("src"));
+        Map<String, byte[]> actual = readTree(decompile(jarPath, 4).resolve("src"));
+        assertTrue(expected.keySet().stream().filter(name -> name.endsWith(".java")).count() >= 50);
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String name : expected.keySet()) {
+            assertArrayEquals(name, expected.get(name), actual.get(name));
+        }
+    }
+
+    @Test
+    public void testNestedJarsBecomeModules() throws IOException {
+        Path libJar = new SyntheticJar()
+                .addSource("org.lib.Util", "package org.lib;\npublic class Util {\n    public static int twice(int x) { return x * 2; }\n}\n")
+                .addResource("org/lib/messages.properties", "hello=world\n")
+                .build(temp.newFolder("lib").toPath(), "util-1.0.jar");
+        Path jarPath = SyntheticJar.ofClasses(3)
+                .withEntryPrefix("BOOT-INF/classes/")
+                .addResource("BOOT-INF/lib/util-1.0.jar", Files.readAllBytes(libJar))
+                .build(temp.newFolder("jar").toPath(), "app.jar");
+
+        Properties properties = new Properties();
+        properties.setProperty("decompile.parallelism", "2");
+        properties.setProperty("decompile.nestedJars", "true");
+        Path project = decompile(jarPath, properties).resolve("app");
+
+        String parentPom = new String(Files.readAllBytes(project.resolve("pom.xml")), "UTF-8");
+        assertTrue(parentPom.contains("<packaging>pom</packaging>"));
+        assertTrue(parentPom.contains("<module>app</module>"));
+        assertTrue(parentPom.contains("<module>libs/util-1.0</module>"));
+        assertTrue(Files.exists(project.resolve("app/src/main/java/com/synthetic/p0/C0.java")));
+        Path libModule = project.resolve("libs/util-1.0");
+        assertTrue(Files.exists(libModule.resolve("pom.xml")));
+        assertTrue(Files.exists(libModule.resolve("src/main/java/org/lib/Util.java")));
+        assertTrue(Files.exists(libModule.resolve("src/main/resources/org/lib/messages.properties")));
+    }
+
+    @Test
+    public void testResourcesOutsideTheModuleAreSkipped() throws IOException {
+        Path libJar = new SyntheticJar()
+                .addSource("org.lib.Util", "package org.lib;\npublic class Util {}\n")
+                .addResource("../../../lib-escape.txt", "x\n")
+                .addResource("org/lib/ok.properties", "ok=1\n")
+                .build(temp.newFolder("lib").toPath(), "util-1.0.jar");
+        Path jarPath = SyntheticJar.ofClasses(1)
+                .withEntryPrefix("BOOT-INF/classes/")
+                .addResource("BOOT-INF/classes/../../../../app-escape.txt", "x\n")
+                .addResource("BOOT-INF/lib/util-1.0.jar", Files.readAllBytes(libJar))
+                .build(temp.newFolder("jar").toPath(), "app.jar");
+
+        Properties properties = new Properties();
+        properties.setProperty("decompile.nestedJars", "true");
+        Path output = decompile(jarPath, properties);
+
+        try (Stream<Path> walk = Files.walk(temp.getRoot().toPath())) {
+            assertEquals(Collections.emptyList(), walk.filter(path -> path.getFileName().toString().endsWith("-escape.txt"))
+                    .collect(Collectors.toList()));
+        }
+        assertTrue(Files.exists(output.resolve("app/libs/util-1.0/src/main/resources/org/lib/ok.properties")));
+        Path resources = Paths.get("out", "src", "main", "resources");
+        assertNull(JarDecompiler.resolveResource(resources, "../x.txt"));
+        assertNull(JarDecompiler.resolveResource(resources, "/etc/x.txt"));
+        assertEquals(resources.toAbsolutePath().resolve("a/x.txt"), JarDecompiler.resolveResource(resources, "a/../a/x.txt"));
+    }
+
+    @Test
+    public void testEveryKindOfTypeGetsItsOwnFile() throws IOException {
+        Path jarPath = new SyntheticJar()
+                .addSource("com.kinds.Plain", "package com.kinds;\npublic class Plain {}\n")
+                .addSource("com.kinds.Shape", "package com.kinds;\npublic interface Shape { int sides(); }\n")
+                .addSource("com.kinds.Color", "package com.kinds;\npublic enum Color { RED, GREEN }\n")
+                .addSource("com.kinds.Marker", "package com.kinds;\n@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\npublic @interface Marker {}\n")
+                .addSource("com.kinds.Base", "package com.kinds;\n@Marker\npublic abstract class Base { abstract void run(); }\n")
+                .build(temp.newFolder("jar").toPath(), "kinds.jar");
+
+        Path src = decompile(jarPath, new Properties()).resolve("kinds/src/main/java/com/kinds");
+        for (String name : Arrays.asList("Plain", "Shape", "Color", "Marker", "Base")) {
+            assertTrue(name, Files.exists(src.resolve(name + ".java")));
+        }
+        assertFalse(Files.exists(src.resolve("Unknown.java")));
+    }
+
+    @Test
+    public void testInjectedConfigSelectsTheDependencyIndex() throws IOException {
+        Path jarPath = SyntheticJar.ofClasses(2).build(temp.newFolder("jar").toPath(), "app.jar");
+        Path userIndex = temp.newFile("index.txt").toPath();
+        Files.write(userIndex, "com.synthetic=com.example.test:synthetic-lib:9.9\n".getBytes("UTF-8"));
+
+        Properties properties = new Properties();
+        properties.setProperty("dependency.index", userIndex.toString());
+        String pom = new String(Files.readAllBytes(decompile(jarPath, properties).resolve("app/pom.xml")), "UTF-8");
+        assertTrue(pom, pom.contains("<artifactId>synthetic-lib</artifactId>"));
+    }
+
+    @Test
+    public void testVerificationLevelComesFromTheGeneratedPom() throws IOException {
+        Path jarPath = SyntheticJar.ofClasses(2).build(temp.newFolder("jar").toPath(), "app.jar");
+        Path pomFile = decompile(jarPath, new Properties()).resolve("app/pom.xml");
+        String expected = MavenProjectGenerator.javaLevel(MavenProjectGenerator.maxMajorVersion(ArchiveIndex.open(jarPath)));
+        assertEquals(expected, JarDecompiler.compilerLevel(pomFile));
+        assertNull(JarDecompiler.compilerLevel(pomFile.resolveSibling("missing.xml")));
+    }
+
+    @Test
+    public void testExtractTypeNameFromText() {
+        String header = "/*\n * Decompiled with CFR.\n */\n";
+        assertEquals("a.b.Foo", JarDecompiler.extractTypeName(header + "package a.b;\n\nimport java.util.List;\n\npublic final class Foo\nextends Object {\n}\n"));
+        assertEquals("a.Shape", JarDecompiler.extractTypeName("package a;\n\ninterface Shape {\n}\n"));
+        assertEquals("a.Color", JarDecompiler.extractTypeName("package a;\n\npublic static enum Color {\n    RED;\n}\n"));
+        assertEquals("a.Marker", JarDecompiler.extractTypeName("package a;\n\n@Retention(value=RetentionPolicy.RUNTIME)\npublic @interface Marker {\n}\n"));
+        assertEquals("Top", JarDecompiler.extractTypeName(header + "public class Top {\n    String s = \" class Fake \";\n}\n"));
+        assertNull(JarDecompiler.extractTypeName(header));
+    }
+
+    private Path decompile(Path jarPath, int parallelism) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("decompile.parallelism", String.valueOf(parallelism));
+        return decompile(jarPath, properties).resolve("app");
+    }
+
+    private Path decompile(Path jarPath, Properties properties) throws IOException {
+        Path outputBase = temp.newFolder().toPath();
+        new JarDecompiler(outputBase.toString(), new AppConfig(properties))
+                .decompileJar(jarPath.toString());
+        return outputBase;
+    }
+
+    private static Map<String, byte[]> readTree(Path root) throws IOException {
+        Map<String, byte[]> files = new TreeMap<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path file : walk.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                files.put(root.relativize(file).toString(), Files.readAllBytes(file));
+            }
+        }
+        return files;
+    }
+}
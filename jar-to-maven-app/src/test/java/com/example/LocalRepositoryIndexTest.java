@@ -0,0 +1,150 @@
+package com.example;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LocalRepositoryIndexTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testIndexIsPersistedAndUpdatedIncrementally() throws IOException {
+        Path repository = temp.newFolder("repository").toPath();
+        Path indexFile = temp.getRoot().toPath().resolve("index/m2-index.bin");
+        Path core = install(repository, "com.acme", "acme-core", "1.0", "com.acme.core.Api");
+        install(repository, "com.acme", "acme-util", "2.1", "com.acme.util.Strings");
+        // 带 classifier 的 JAR 不计入
+        Files.copy(core, core.resolveSibling("acme-core-1.0-sources.jar"));
+
+        LocalRepositoryIndex first = LocalRepositoryIndex.open(repository, indexFile);
+        assertEquals(2, first.size());
+        assertEquals(2, first.getLastIndexedJars());
+        String coreSha1 = LocalRepositoryIndex.sha1(ByteBuffer.wrap(Files.readAllBytes(core)));
+        assertEquals("com.acme:acme-core:1.0", first.findBySha1(coreSha1).toString());
+        assertEquals("com.acme:acme-util:2.1", first.findByFileName("lib/acme-util-2.1.jar").toString());
+        assertEquals("com.acme:acme-core:1.0", first.findByPackage("com.acme.core").toString());
+
+        // 没有变化时不重新索引
+        LocalRepositoryIndex second = LocalRepositoryIndex.open(repository, indexFile);
+        assertEquals(2, second.size());
+        assertEquals(0, second.getLastIndexedJars());
+        assertEquals("com.acme:acme-core:1.0", second.findBySha1(coreSha1).toString());
+
+        // 新版本、修改和删除
+        install(repository, "com.acme", "acme-core", "1.1", "com.acme.core.Api");
+        Files.setLastModifiedTime(core, FileTime.fromMillis(Files.getLastModifiedTime(core).toMillis() + 5000));
+        Files.delete(repository.resolve("com/acme/acme-util/2.1/acme-util-2.1.jar"));
+        LocalRepositoryIndex third = LocalRepositoryIndex.open(repository, indexFile);
+        assertEquals(2, third.size());
+        assertEquals(2, third.getLastIndexedJars());
+        assertEquals(1, third.getLastRemovedJars());
+        assertNull(third.findByFileName("acme-util-2.1.jar"));
+        assertEquals("com.acme:acme-core:1.1", third.findByPackage("com.acme.core").toString());
+    }
+
+    @Test
+    public void testNestedAndReferencedJarsResolveToExactCoordinates() throws IOException {
+        Path repository = temp.newFolder("repository").toPath();
+        Path core = install(repository, "com.acme", "acme-core", "1.0", "com.acme.core.Api");
+        LocalRepositoryIndex index = LocalRepositoryIndex.open(repository, temp.getRoot().toPath().resolve("m2-index.bin"));
+
+        Path jarPath = new SyntheticJar()
+                .withEntryPrefix("BOOT-INF/classes/")
+                .addSource("com.app.Main", "package com.app;\npublic class Main {}\n")
+                .addResource("BOOT-INF/lib/renamed.jar", Files.readAllBytes(core))
+                .build(temp.newFolder("jar").toPath(), "app.jar");
+
+        Model model = new Model();
+        new MavenProjectGenerator(DependencyResolver.getDefault(), index).analyzeDependencies(model, ArchiveIndex.open(jarPath));
+        List<String> coordinates = new ArrayList<>();
+        for (Dependency dependency : model.getDependencies()) {
+            coordinates.add(dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getVersion());
+        }
+        // 文件名被改过，仍按内容的 SHA-1 匹配
+        assertTrue(coordinates.toString(), coordinates.contains("com.acme:acme-core:1.0"));
+    }
+
+    @Test
+    public void testPackagesAreResolvedOnlyWhenOneArtifactClaimsThem() throws IOException {
+        Path repository = temp.newFolder("repository").toPath();
+        install(repository, "com.acme", "acme-core", "1.9", "com.acme.core.Api");
+        install(repository, "com.acme", "acme-core", "1.10", "com.acme.core.Api");
+        // 同一个包被另一个构件重新打包，版本更高也不能确定来源
+        install(repository, "com.acme", "acme-shared", "1.0", "com.acme.shared.Util");
+        install(repository, "org.shaded", "everything", "5.0", "com.acme.shared.Util");
+        // 安装到本地仓库的应用自身
+        install(repository, "com.app", "app", "1.0", "com.app.Helper");
+        LocalRepositoryIndex index = LocalRepositoryIndex.open(repository, temp.getRoot().toPath().resolve("m2-index.bin"));
+
+        assertEquals("com.acme:acme-core:1.10", index.findByPackage("com.acme.core").toString());
+        assertNull(index.findByPackage("com.acme.shared"));
+        assertEquals("com.app:app:1.0", index.findByPackage("com.app").toString());
+
+        Path jarPath = new SyntheticJar()
+                .withEntryPrefix("BOOT-INF/classes/")
+                .addSource("com.app.Helper", "package com.app;\npublic class Helper {}\n")
+                .addSource("com.app.Main", "package com.app;\npublic class Main { Helper helper; }\n")
+                .build(temp.newFolder("jar").toPath(), "app.jar");
+        Model model = new Model();
+        new MavenProjectGenerator(DependencyResolver.getDefault(), index).analyzeDependencies(model, ArchiveIndex.open(jarPath));
+        for (Dependency dependency : model.getDependencies()) {
+            assertNotEquals("com.app", dependency.getGroupId());
+        }
+    }
+
+    @Test
+    public void testAmbiguousFileNamesAreNotResolved() throws IOException {
+        Path repository = temp.newFolder("repository").toPath();
+        install(repository, "com.acme", "core", "1.0", "com.acme.core.Api");
+        install(repository, "org.other", "core", "1.0", "org.other.core.Api");
+        install(repository, "com.acme", "acme-util", "2.1", "com.acme.util.Strings");
+        LocalRepositoryIndex index = LocalRepositoryIndex.open(repository, temp.getRoot().toPath().resolve("m2-index.bin"));
+
+        assertNull(index.findByFileName("core-1.0.jar"));
+        assertEquals("com.acme:acme-util:2.1", index.findByFileName("acme-util-2.1.jar").toString());
+    }
+
+    @Test
+    public void testInjectedConfigEnablesTheIndex() throws IOException {
+        Path repository = temp.newFolder("repository").toPath();
+        Path core = install(repository, "com.acme", "acme-core", "1.0", "com.acme.core.Api");
+        Path jarPath = new SyntheticJar()
+                .withEntryPrefix("BOOT-INF/classes/")
+                .addSource("com.app.Main", "package com.app;\npublic class Main {}\n")
+                .addResource("BOOT-INF/lib/renamed.jar", Files.readAllBytes(core))
+                .build(temp.newFolder("jar").toPath(), "app.jar");
+
+        Properties properties = new Properties();
+        properties.setProperty("m2.index.enabled", "true");
+        properties.setProperty("m2.repository", repository.toString());
+        properties.setProperty("m2.index.file", temp.getRoot().toPath().resolve("m2-index.bin").toString());
+        Path output = temp.newFolder("out").toPath();
+        new JarDecompiler(output.toString(), new AppConfig(properties)).decompileJar(jarPath.toString());
+
+        String pom = new String(Files.readAllBytes(output.resolve("app/pom.xml")), "UTF-8");
+        assertTrue(pom, pom.contains("<artifactId>acme-core</artifactId>"));
+    }
+
+    private Path install(Path repository, String groupId, String artifactId, String version, String className) throws IOException {
+        Path dir = Files.createDirectories(repository.resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version));
+        String pkg = className.substring(0, className.lastIndexOf('.'));
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        Path jar = new SyntheticJar()
+                .addSource(className, "package " + pkg + ";\npublic class " + simpleName + " { String v = \"" + version + "\"; }\n")
+                .build(temp.newFolder().toPath(), artifactId + "-" + version + ".jar");
+        return Files.copy(jar, dir.resolve(jar.getFileName().toString()));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class MainTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testDecompileCommand() throws IOException {
+        Path jar = SyntheticJar.ofClasses(3).build(temp.newFolder().toPath(), "small.jar");
+        Path output = temp.newFolder("out").toPath();
+
+        assertEquals(2, Main.decompile(new String[0]));
+        assertEquals(0, Main.decompile(new String[]{jar.toString(), output.toString()}));
+        assertTrue(Files.exists(output.resolve("small/pom.xml")));
+        assertTrue(Files.exists(output.resolve("small/src/main/java/com/synthetic/p2/C2.java")));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class MavenProjectGeneratorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testReferencedPackagesAreFoldedWhileScanning() throws IOException {
+        ArchiveIndex index = ArchiveIndex.open(SyntheticJar.ofClasses(12)
+                .addSource("com.app.Service", "package com.app;\n"
+                        + "public class Service {\n"
+                        + "    public java.util.concurrent.Future<?> submit(java.nio.file.Path[] paths) { return null; }\n"
+                        + "    public Object parse(String xml) throws java.io.IOException { return new java.util.zip.CRC32(); }\n"
+                        + "}\n")
+                .build(temp.getRoot().toPath(), "app.jar"));
+
+        MavenProjectGenerator.ReferencedPackages referenced = new MavenProjectGenerator.ReferencedPackages();
+        // 只有一个槽位的去重表每次都冲突，结果必须相同
+        MavenProjectGenerator.ReferencedPackages colliding = new MavenProjectGenerator.ReferencedPackages(1);
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                new ClassReader(index.readBytes(entry)).accept(new MavenProjectGenerator.ClassDependencyVisitor(referenced),
+                        ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+                new ClassReader(index.readBytes(entry)).accept(new MavenProjectGenerator.ClassDependencyVisitor(colliding),
+                        ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            }
+        }
+        assertEquals(referenced.getPackages(), colliding.getPackages());
+
+        Set<String> packages = referenced.getPackages();
+        // 方法参数（含数组）、返回值、throws 和指令中引用的类型都计入
+        assertTrue(packages.toString(), packages.containsAll(Arrays.asList(
+                "java/util/concurrent", "java/nio/file", "java/io", "java/util/zip", "java/util", "java/lang")));
+        assertTrue(packages.containsAll(Arrays.asList("com/synthetic/p0", "com/synthetic/p3")));
+        // 只有包，不含类名
+        assertFalse(packages.contains("com/synthetic/p0/C0"));
+    }
+
+    @Test
+    public void testParallelScanFindsSameDependencies() throws IOException {
+        ArchiveIndex index = ArchiveIndex.open(SyntheticJar.ofClasses(40)
+                .addSource("com.app.Logging", "package com.app;\n"
+                        + "public class Logging { org.objectweb.asm.Type type; org.benf.cfr.reader.api.CfrDriver driver; }\n")
+                .build(temp.getRoot().toPath(), "app.jar"));
+        MavenProjectGenerator generator = new MavenProjectGenerator(DependencyResolver.getDefault());
+
+        Model sequential = new Model();
+        generator.analyzeDependencies(sequential, index);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Model parallel = new Model();
+        try {
+            MavenProjectGenerator.ClassScan scan = generator.startClassScan(index, executor, 7);
+            generator.analyzeDependencies(parallel, index, scan);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(coordinates(sequential), coordinates(parallel));
+        assertTrue(coordinates(parallel).toString(), coordinates(parallel).contains("org.ow2.asm:asm"));
+    }
+
+    @Test
+    public void testCompilerLevelFollowsClassFileVersion() throws IOException {
+        // 合成 JAR 由当前 JDK 按默认级别编译
+        Path jar = SyntheticJar.ofClasses(3).build(temp.newFolder().toPath(), "app.jar");
+        ArchiveIndex index = ArchiveIndex.open(jar);
+        String expected = System.getProperty("java.specification.version");
+        assertEquals(expected, MavenProjectGenerator.javaLevel(MavenProjectGenerator.maxMajorVersion(index)));
+
+        Model model = new Model();
+        new MavenProjectGenerator(DependencyResolver.getDefault()).analyzeDependencies(model, index);
+        assertEquals(expected, model.getProperties().getProperty("maven.compiler.source"));
+        assertEquals(expected, model.getProperties().getProperty("maven.compiler.target"));
+        assertEquals(expected.startsWith("1.") ? null : expected, model.getProperties().getProperty("maven.compiler.release"));
+    }
+
+    @Test
+    public void testVersionedEntriesDoNotRaiseTheCompilerLevel() throws IOException {
+        // 多版本 JAR：META-INF/versions/19 下的类版本更高，两条计算路径都应忽略它
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V19, Opcodes.ACC_PUBLIC, "com/synthetic/p0/C0", null, "java/lang/Object", null);
+        writer.visitEnd();
+        Path jar = SyntheticJar.ofClasses(3)
+                .addResource("META-INF/versions/19/com/synthetic/p0/C0.class", writer.toByteArray())
+                .build(temp.newFolder().toPath(), "multi-release.jar");
+        ArchiveIndex index = ArchiveIndex.open(jar);
+        String expected = System.getProperty("java.specification.version");
+        assertEquals(expected, MavenProjectGenerator.javaLevel(MavenProjectGenerator.maxMajorVersion(index)));
+
+        Model model = new Model();
+        new MavenProjectGenerator(DependencyResolver.getDefault()).analyzeDependencies(model, index);
+        assertEquals(expected, model.getProperties().getProperty("maven.compiler.source"));
+    }
+
+    private static Set<String> coordinates(Model model) {
+        Set<String> coordinates = new TreeSet<>();
+        for (Dependency dependency : model.getDependencies()) {
+            coordinates.add(dependency.getGroupId() + ":" + dependency.getArtifactId());
+        }
+        return coordinates;
+    }
+}
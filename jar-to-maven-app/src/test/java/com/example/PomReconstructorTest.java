@@ -0,0 +1,101 @@
+package com.example;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class PomReconstructorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testRootIsChosenByStartClassAndLibrariesBecomeDependencies() throws IOException {
+        SyntheticJar jar = SyntheticJar.ofClasses(2)
+                .addResource("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n"
+                        + "Main-Class: org.springframework.boot.loader.JarLauncher\n"
+                        + "Start-Class: com.acme.shop.web.ShopApplication\n");
+        // 库的 pom 排在前面，旧实现会取到第一个
+        jar.addResource("META-INF/maven/com.google.guava/guava/pom.xml", pom("com.google.guava", "guava", "31.1-jre", ""));
+        jar.addResource("META-INF/maven/com.acme/common/pom.xml", pom("com.acme", "common", "2.0", ""));
+        jar.addResource("META-INF/maven/com.acme/shop-web/pom.xml", "<project><modelVersion>4.0.0</modelVersion>"
+                + "<parent><groupId>com.acme</groupId><artifactId>shop</artifactId><version>3.1</version></parent>"
+                + "<artifactId>shop-web</artifactId><name>Shop</name>"
+                + "<properties><java.version>11</java.version></properties>"
+                + "<dependencies>"
+                + "<dependency><groupId>com.acme</groupId><artifactId>common</artifactId><version>2.0</version></dependency>"
+                + "<dependency><groupId>com.acme</groupId><artifactId>common</artifactId><version>2.0</version></dependency>"
+                + "</dependencies></project>");
+        jar.addResource("META-INF/maven/broken/broken/pom.xml", "<project><artifactId>");
+        // 作为资源打进来的 pom.xml 不是构件的 pom，不合并
+        jar.addResource("archetype-resources/pom.xml", pom("${groupId}", "${artifactId}", "${version}", ""));
+        jar.addResource("BOOT-INF/classes/templates/pom.xml", pom("com.template", "template", "0.1", ""));
+        for (int i = 0; i < 20; i++) {
+            jar.addResource("META-INF/maven/org.lib" + i + "/lib" + i + "/pom.xml", pom("org.lib" + i, "lib" + i, "1." + i, ""));
+        }
+        ArchiveIndex index = ArchiveIndex.open(jar.build(temp.getRoot().toPath(), "shop.jar"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        DecompileMetrics metrics = new DecompileMetrics();
+        Model model = new Model();
+        model.getProperties().setProperty("project.build.sourceEncoding", "UTF-8");
+        try {
+            assertTrue(new PomReconstructor(executor, metrics).reconstruct(index, model));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 坐标取自 shop-web，省略的 groupId、version 继承自 parent
+        assertEquals("com.acme", model.getGroupId());
+        assertEquals("shop-web", model.getArtifactId());
+        assertEquals("3.1", model.getVersion());
+        assertEquals("shop", model.getParent().getArtifactId());
+        assertEquals("Shop", model.getName());
+        assertEquals("11", model.getProperties().getProperty("java.version"));
+        assertEquals("UTF-8", model.getProperties().getProperty("project.build.sourceEncoding"));
+
+        // 自身声明的 common 只出现一次，其他库的 pom 依次追加为依赖，解析失败的跳过
+        List<String> coordinates = new ArrayList<>();
+        for (Dependency dependency : model.getDependencies()) {
+            coordinates.add(dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getVersion());
+        }
+        assertEquals(22, coordinates.size());
+        assertEquals("com.acme:common:2.0", coordinates.get(0));
+        assertEquals("com.google.guava:guava:31.1-jre", coordinates.get(1));
+        assertEquals("org.lib19:lib19:1.19", coordinates.get(21));
+        assertEquals(1, metrics.getFailures(DecompileMetrics.FAILURE_POM));
+    }
+
+    @Test
+    public void testGeneratedPomKeepsEmbeddedDependenciesAndAddsBuildPlugins() throws IOException {
+        Path jar = SyntheticJar.ofClasses(4)
+                .addResource("META-INF/maven/com.acme/app/pom.xml", pom("com.acme", "app", "1.0",
+                        "<dependencies><dependency><groupId>org.slf4j</groupId><artifactId>slf4j-api</artifactId>"
+                                + "<version>1.7.36</version></dependency></dependencies>"))
+                .build(temp.getRoot().toPath(), "app.jar");
+        Path output = temp.newFolder("out").toPath();
+
+        new MavenProjectGenerator(DependencyResolver.getDefault()).generateProject(output, ArchiveIndex.open(jar));
+
+        String pom = new String(Files.readAllBytes(output.resolve("pom.xml")), "UTF-8");
+        assertTrue(pom.contains("<artifactId>app</artifactId>"));
+        assertTrue(pom.contains("<artifactId>maven-compiler-plugin</artifactId>"));
+        assertEquals(1, pom.split("<artifactId>slf4j-api</artifactId>", -1).length - 1);
+    }
+
+    private static String pom(String groupId, String artifactId, String version, String body) {
+        return "<project><modelVersion>4.0.0</modelVersion><groupId>" + groupId + "</groupId><artifactId>" + artifactId
+                + "</artifactId><version>" + version + "</version>" + body + "</project>";
+    }
+}
@@ -0,0 +1,95 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ReachabilityPrunerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testOnlyClassesReachableFromRootsAreKept() throws IOException {
+        ArchiveIndex index = ArchiveIndex.open(new SyntheticJar()
+                .addSource("com.app.Main", "package com.app;\npublic class Main {\n"
+                        + "    public static void main(String[] args) { new Service().run(); }\n}\n")
+                .addSource("com.app.Service", "package com.app;\npublic class Service {\n"
+                        + "    void run() { new com.lib.Used.Helper().help(); }\n}\n")
+                .addSource("com.lib.Used", "package com.lib;\npublic class Used {\n"
+                        + "    public static class Helper { public void help() { } }\n}\n")
+                .addSource("com.lib.Unused", "package com.lib;\npublic class Unused { Other other; }\n")
+                .addSource("com.lib.Other", "package com.lib;\npublic class Other { }\n")
+                .addSource("com.lib.Spi", "package com.lib;\npublic interface Spi { }\n")
+                .addSource("com.plugin.Impl", "package com.plugin;\npublic class Impl implements com.lib.Spi { }\n")
+                .addResource("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\nMain-Class: com.app.Main\n\n")
+                .addResource("META-INF/services/com.lib.Spi", "# provider\ncom.plugin.Impl\n")
+                .build(temp.getRoot().toPath(), "app.jar"));
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classPaths.add(entry.getName());
+            }
+        }
+
+        List<String> kept = new ReachabilityPruner(Arrays.asList("manifest", "services")).prune(index, classPaths, true);
+        assertEquals(new TreeSet<>(Arrays.asList("com/app/Main.class", "com/app/Service.class", "com/lib/Used.class",
+                "com/lib/Used$Helper.class", "com/lib/Spi.class", "com/plugin/Impl.class")), new TreeSet<>(kept));
+
+        // 包前缀作为根
+        kept = new ReachabilityPruner(Collections.singletonList("com.lib.*")).prune(index, classPaths, false);
+        assertTrue(kept.containsAll(Arrays.asList("com/lib/Unused.class", "com/lib/Other.class")));
+        assertFalse(kept.contains("com/app/Main.class"));
+
+        // 没有任何根时不裁剪
+        assertEquals(classPaths, new ReachabilityPruner(Collections.singletonList("spring")).prune(index, classPaths, false));
+    }
+
+    @Test
+    public void testClassLiteralsMethodReferencesCatchTypesAndAnnotationsAreEdges() throws IOException {
+        ArchiveIndex index = ArchiveIndex.open(new SyntheticJar()
+                .addSource("com.app.Main", "package com.app;\npublic class Main {\n"
+                        + "    @com.lib.FieldMark String field;\n"
+                        + "    public static void main(String[] args) throws Exception {\n"
+                        + "        System.out.println(com.lib.Literal.class);\n"
+                        + "        Runnable r = com.lib.Referenced::run;\n"
+                        + "        java.util.function.Supplier<Object> s = com.lib.Created::new;\n"
+                        + "        try { r.run(); } catch (com.lib.Failure e) { }\n"
+                        + "        Object grid = new com.lib.Cell[2][2];\n"
+                        + "    }\n"
+                        + "    @com.lib.MethodMark(com.lib.AnnotationValue.class)\n"
+                        + "    void handle(@com.lib.ParamMark String value) { }\n"
+                        + "}\n")
+                .addSource("com.lib.Literal", "package com.lib;\npublic class Literal { }\n")
+                .addSource("com.lib.Referenced", "package com.lib;\npublic class Referenced { public static void run() { } }\n")
+                .addSource("com.lib.Created", "package com.lib;\npublic class Created { }\n")
+                .addSource("com.lib.Failure", "package com.lib;\npublic class Failure extends RuntimeException { }\n")
+                .addSource("com.lib.Cell", "package com.lib;\npublic class Cell { }\n")
+                .addSource("com.lib.FieldMark", "package com.lib;\npublic @interface FieldMark { }\n")
+                .addSource("com.lib.MethodMark", "package com.lib;\npublic @interface MethodMark { Class<?> value(); }\n")
+                .addSource("com.lib.ParamMark", "package com.lib;\npublic @interface ParamMark { }\n")
+                .addSource("com.lib.AnnotationValue", "package com.lib;\npublic class AnnotationValue { }\n")
+                .addSource("com.lib.Unused", "package com.lib;\npublic class Unused { }\n")
+                .addResource("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\nMain-Class: com.app.Main\n\n")
+                .build(temp.getRoot().toPath(), "refs.jar"));
+        List<String> classPaths = new ArrayList<>();
+        for (ArchiveIndex.Entry entry : index.entries()) {
+            if (entry.getName().endsWith(".class")) {
+                classPaths.add(entry.getName());
+            }
+        }
+
+        Set<String> kept = new TreeSet<>(new ReachabilityPruner(Collections.singletonList("manifest"))
+                .prune(index, classPaths, false));
+        for (String name : Arrays.asList("Literal", "Referenced", "Created", "Failure", "Cell", "FieldMark",
+                "MethodMark", "ParamMark", "AnnotationValue")) {
+            assertTrue(name + " should be reachable: " + kept, kept.contains("com/lib/" + name + ".class"));
+        }
+        assertFalse(kept.contains("com/lib/Unused.class"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.*;
+
+public class SourceWriterTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testPackageDirectoriesAreCreatedOnce() throws IOException {
+        Path root = temp.newFolder("out").toPath();
+        // 容量为 1，写线程跟不上时生产者被阻塞而不是无限堆积
+        SourceWriter writer = new SourceWriter(root, false, 1);
+        try {
+            for (int i = 0; i < 100; i++) {
+                writer.write(root.resolve("p" + (i % 4)).resolve("C" + i + ".java"), "class C" + i + " {}");
+            }
+        } finally {
+            writer.close();
+        }
+        assertEquals(100, writer.getWrittenFiles());
+        assertEquals(4, writer.getCreatedDirectories());
+        assertEquals("class C7 {}" + System.lineSeparator(),
+                new String(Files.readAllBytes(root.resolve("p3/C7.java")), StandardCharsets.UTF_8));
+    }
+
+    @Test(timeout = 30000)
+    public void testRuntimeFailureInWriterDoesNotBlockProducers() throws IOException {
+        Path root = temp.newFolder("zipped").toPath();
+        SourceWriter writer = new SourceWriter(root, true, 1);
+        // 相对路径无法相对 rootDir 计算条目名，relativize 抛出 IllegalArgumentException
+        writer.write(Paths.get("relative", "Bad.java"), "class Bad {}");
+        try {
+            for (int i = 0; i < 100; i++) {
+                writer.write(root.resolve("C" + i + ".java"), "class C" + i + " {}");
+            }
+            fail("expected the writer failure to be reported");
+        } catch (RuntimeException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IllegalArgumentException);
+        }
+        try {
+            writer.close();
+            fail("expected close to report the writer failure");
+        } catch (IOException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testZipModeWritesSameSourcesAsFiles() throws IOException {
+        Path jarPath = SyntheticJar.ofClasses(12)
+                .withEntryPrefix("BOOT-INF/classes/")
+                .build(temp.newFolder("jar").toPath(), "app.jar");
+
+        Path files = decompile(jarPath, "files");
+        Path zipped = decompile(jarPath, "zip");
+
+        Map<String, byte[]> expected = new TreeMap<>();
+        try (Stream<Path> walk = Files.walk(files.resolve("src/main/java"))) {
+            for (Path file : walk.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                expected.put(files.relativize(file).toString().replace('\\', '/'), Files.readAllBytes(file));
+            }
+        }
+        Map<String, byte[]> actual = new TreeMap<>();
+        try (ZipFile zip = new ZipFile(zipped.resolve(SourceWriter.ZIP_NAME).toFile())) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                try (InputStream is = zip.getInputStream(entry)) {
+                    actual.put(entry.getName(), readAll(is));
+                }
+            }
+        }
+        assertEquals(12, expected.size());
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String name : expected.keySet()) {
+            assertArrayEquals(name, expected.get(name), actual.get(name));
+        }
+        // zip 模式下不再散落单个源文件
+        try (Stream<Path> walk = Files.walk(zipped.resolve("src/main/java"))) {
+            assertEquals(0, walk.filter(Files::isRegularFile).count());
+        }
+    }
+
+    private Path decompile(Path jarPath, String mode) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("output.mode", mode);
+        Path outputBase = temp.newFolder().toPath();
+        new JarDecompiler(outputBase.toString(), new AppConfig(properties))
+                .decompileJar(jarPath.toString());
+        return outputBase.resolve("app");
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
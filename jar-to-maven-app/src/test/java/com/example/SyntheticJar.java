@@ -0,0 +1,103 @@
+package com.example;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 测试用：由 Java 源码编译出合成 JAR
+public class SyntheticJar {
+
+    private final Map<String, String> sources = new LinkedHashMap<>();
+    private final Map<String, byte[]> resources = new LinkedHashMap<>();
+    private String entryPrefix = "";
+
+    // 添加一个源文件，className 为全限定名
+    public SyntheticJar addSource(String className, String source) {
+        sources.put(className, source);
+        return this;
+    }
+
+    public SyntheticJar addResource(String entryName, String content) {
+        return addResource(entryName, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public SyntheticJar addResource(String entryName, byte[] content) {
+        resources.put(entryName, content);
+        return this;
+    }
+
+    // 例如 "BOOT-INF/classes/"，模拟 Spring Boot 的目录布局
+    public SyntheticJar withEntryPrefix(String entryPrefix) {
+        this.entryPrefix = entryPrefix;
+        return this;
+    }
+
+    // 生成 count 个互相引用、带内部类的简单类
+    public static SyntheticJar ofClasses(int count) {
+        SyntheticJar jar = new SyntheticJar();
+        for (int i = 0; i < count; i++) {
+            String pkg = "com.synthetic.p" + (i % 4);
+            int n = (i + 1) % count;
+            String next = "com.synthetic.p" + (n % 4) + ".C" + n;
+            jar.addSource(pkg + ".C" + i,
+                    "package " + pkg + ";\n"
+                    + "public class C" + i + " {\n"
+                    + "    private final java.util.List<String> items = new java.util.ArrayList<>();\n"
+                    + "    public int size() { return items.size(); }\n"
+                    + "    public Object next() { return new " + next + "(); }\n"
+                    + "    public static class Inner {\n"
+                    + "        public String name() { return \"C" + i + "\"; }\n"
+                    + "    }\n"
+                    + "}\n");
+        }
+        return jar;
+    }
+
+    public Path build(Path workDir, String jarName) throws IOException {
+        Path srcDir = Files.createDirectories(workDir.resolve("src"));
+        Path classesDir = Files.createDirectories(workDir.resolve("classes"));
+        List<String> args = new ArrayList<>(Arrays.asList("-d", classesDir.toString(), "-nowarn"));
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            Path file = srcDir.resolve(entry.getKey().replace('.', '/') + ".java");
+            Files.createDirectories(file.getParent());
+            Files.write(file, entry.getValue().getBytes(StandardCharsets.UTF_8));
+            args.add(file.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler.run(null, null, null, args.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Failed to compile synthetic sources");
+        }
+
+        Path jarPath = workDir.resolve(jarName);
+        List<Path> classFiles;
+        try (Stream<Path> walk = Files.walk(classesDir)) {
+            classFiles = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jarPath))) {
+            for (Path classFile : classFiles) {
+                String name = classesDir.relativize(classFile).toString().replace('\\', '/');
+                putEntry(out, entryPrefix + name, Files.readAllBytes(classFile));
+            }
+            for (Map.Entry<String, byte[]> entry : resources.entrySet()) {
+                putEntry(out, entry.getKey(), entry.getValue());
+            }
+        }
+        return jarPath;
+    }
+
+    private static void putEntry(JarOutputStream out, String name, byte[] content) throws IOException {
+        out.putNextEntry(new JarEntry(name));
+        OutputStream os = out;
+        os.write(content);
+        out.closeEntry();
+    }
+}